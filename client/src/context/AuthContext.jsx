@@ -1,4 +1,5 @@
 import React, { createContext, useContext, useState, useEffect } from "react";
+import { logout as logoutSession } from "../services/api";
 
 const AuthContext = createContext();
 
@@ -10,13 +11,14 @@ export const AuthProvider = ({ children }) => {
     if (storedToken !== token) setToken(storedToken);
   }, []);
 
-  const login = (newToken) => {
+  const login = (newToken, refreshToken) => {
     localStorage.setItem("token", newToken);
+    localStorage.setItem("refreshToken", refreshToken);
     setToken(newToken);
   };
 
   const logout = () => {
-    localStorage.removeItem("token");
+    logoutSession();
     setToken(null);
   };
 
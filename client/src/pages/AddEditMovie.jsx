@@ -183,7 +183,7 @@ export default function AddEditMovie() {
           <input
             name="genre"
             type="text"
-            placeholder="Genre (optional)"
+            placeholder="Genres, e.g. Action, Sci-Fi (optional)"
             value={form.genre}
             onChange={handleChange}
             className="w-full px-4 py-2 border border-gray-300 rounded-md focus:outline-none focus:ring-2 focus:ring-blue-500 text-gray-800"
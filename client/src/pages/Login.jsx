@@ -1,5 +1,5 @@
 import React, { useState } from "react";
-import { login, extractTokenFromResponse } from "../services/api";
+import { login } from "../services/api";
 import { Link, useNavigate } from "react-router-dom";
 import { useAuth } from "../context/AuthContext";
 
@@ -23,9 +23,9 @@ export default function Login() {
     try {
       const res = await login(form);
       if (res.data.success) {
-        const token = extractTokenFromResponse(res.data.data.token);
+        const { token, refreshToken } = res.data.data;
         if (token) {
-          authLogin(token);
+          authLogin(token, refreshToken);
           navigate("/watchlist");
         } else {
           setError("Invalid token format");
@@ -1,5 +1,5 @@
 import React, { useEffect, useState } from "react";
-import { getMovies, deleteMovie } from "../services/api";
+import { getMovies, deleteMovie, getGenreFacets } from "../services/api";
 import { useNavigate } from "react-router-dom";
 import { useAuth } from "../context/AuthContext";
 import {
@@ -19,16 +19,34 @@ function Watchlist() {
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState("");
   const [filters, setFilters] = useState({ name: "", genre: "" });
+  const [facets, setFacets] = useState([]);
+  const [selectedGenres, setSelectedGenres] = useState([]);
+  const [match, setMatch] = useState("all");
   const navigate = useNavigate();
   const { token } = useAuth();
 
-  const loadMovies = async () => {
+  const loadFacets = async () => {
+    try {
+      const res = await getGenreFacets();
+      if (res.data.success) {
+        setFacets(res.data.data || []);
+      }
+    } catch (err) {
+      console.error("Load genre facets error:", err);
+    }
+  };
+
+  const loadMovies = async (genres = selectedGenres, genreMatch = match) => {
     try {
       setLoading(true);
       setError("");
       const cleanFilters = Object.fromEntries(
         Object.entries(filters).filter(([_, v]) => v.trim() !== "")
       );
+      if (genres.length > 0) {
+        cleanFilters.genres = genres.join(",");
+        cleanFilters.match = genreMatch;
+      }
       const res = await getMovies(cleanFilters);
       if (res.data.success) {
         setMovies(res.data.data || []);
@@ -49,6 +67,7 @@ function Watchlist() {
         const res = await deleteMovie(id);
         if (res.data.success) {
           setMovies(movies.filter((movie) => movie.id !== id));
+          loadFacets();
         } else {
           alert(res.data.message || "Failed to delete movie");
         }
@@ -65,6 +84,7 @@ function Watchlist() {
       return;
     }
     loadMovies();
+    loadFacets();
   }, [token]);
 
   const handleFilterChange = (e) => {
@@ -76,6 +96,22 @@ function Watchlist() {
     loadMovies();
   };
 
+  const toggleGenre = (genre) => {
+    const genres = selectedGenres.includes(genre)
+      ? selectedGenres.filter((g) => g !== genre)
+      : [...selectedGenres, genre];
+    setSelectedGenres(genres);
+    loadMovies(genres);
+  };
+
+  const toggleMatch = () => {
+    const genreMatch = match === "all" ? "any" : "all";
+    setMatch(genreMatch);
+    if (selectedGenres.length > 1) {
+      loadMovies(selectedGenres, genreMatch);
+    }
+  };
+
   return (
     <div className="max-w-7xl mx-auto px-4 sm:px-6 lg:px-8 py-10">
       {/* Header */}
@@ -124,6 +160,33 @@ function Watchlist() {
         </button>
       </form>
 
+      {/* Genre facets */}
+      {facets.length > 0 && (
+        <div className="flex flex-wrap items-center gap-2 -mt-6 mb-10">
+          {facets.map((facet) => (
+            <button
+              key={facet.genre}
+              onClick={() => toggleGenre(facet.genre)}
+              className={`text-xs font-medium px-3 py-1.5 rounded-full border transition duration-200 ${
+                selectedGenres.includes(facet.genre)
+                  ? "bg-orange-500 border-orange-500 text-white"
+                  : "border-white/20 text-gray-300 hover:border-orange-400"
+              }`}
+            >
+              {facet.label} <span className="opacity-70">{facet.count}</span>
+            </button>
+          ))}
+          {selectedGenres.length > 1 && (
+            <button
+              onClick={toggleMatch}
+              className="text-xs text-blue-400 hover:underline ml-2"
+            >
+              {match === "all" ? "Matching all genres" : "Matching any genre"}
+            </button>
+          )}
+        </div>
+      )}
+
       {/* Error message */}
       {error && (
         <div className="bg-red-100 border border-red-300 text-red-700 p-4 rounded-lg mb-6 flex justify-between items-center shadow">
@@ -132,7 +195,7 @@ function Watchlist() {
             <span>{error}</span>
           </div>
           <button
-            onClick={loadMovies}
+            onClick={() => loadMovies()}
             className="text-sm bg-blue-600 hover:bg-blue-700 text-white px-3 py-1.5 rounded-md"
           >
             Retry
@@ -164,8 +227,9 @@ function Watchlist() {
             >
               {movie.posterUrl && (
                 <img
-                  src={movie.posterUrl}
+                  src={movie.posterMediumUrl || movie.posterUrl}
                   alt={`${movie.name} Poster`}
+                  loading="lazy"
                   className="w-full h-56 object-cover"
                 />
               )}
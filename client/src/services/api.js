@@ -4,22 +4,70 @@ const API = axios.create({
   baseURL: `${import.meta.env.VITE_SERVER_URL}/api`,
 });
 
+// Sent back after a write, so reads keep going to the primary database while replicas catch up
+const PRIMARY_UNTIL = "X-Primary-Until";
+
 // Request interceptor to add token to headers
 API.interceptors.request.use((req) => {
   const token = localStorage.getItem("token");
   if (token) {
     req.headers.Authorization = `Bearer ${token}`;
   }
+  const primaryUntil = localStorage.getItem(PRIMARY_UNTIL);
+  if (primaryUntil && Number(primaryUntil) > Date.now()) {
+    req.headers[PRIMARY_UNTIL] = primaryUntil;
+  }
   return req;
 });
 
-// Response interceptor to handle authentication errors
+const clearTokens = () => {
+  localStorage.removeItem("token");
+  localStorage.removeItem("refreshToken");
+};
+
+// One refresh at a time: requests failing together all wait for the same new token
+let refreshing = null;
+
+const refreshAccessToken = () => {
+  if (!refreshing) {
+    const refreshToken = localStorage.getItem("refreshToken");
+    refreshing = (
+      refreshToken
+        ? axios.post(`${import.meta.env.VITE_SERVER_URL}/api/auth/refresh`, { refreshToken })
+        : Promise.reject(new Error("No refresh token"))
+    )
+      .then((res) => {
+        localStorage.setItem("token", res.data.data.token);
+        return res.data.data.token;
+      })
+      .finally(() => {
+        refreshing = null;
+      });
+  }
+  return refreshing;
+};
+
+// Response interceptor: an expired access token is renewed once, a failed renewal signs out
 API.interceptors.response.use(
-  (response) => response,
-  (error) => {
-    if (error.response?.status === 401) {
-      localStorage.removeItem("token");
-      window.location.href = "/";
+  (response) => {
+    const primaryUntil = response.headers[PRIMARY_UNTIL.toLowerCase()];
+    if (primaryUntil) {
+      localStorage.setItem(PRIMARY_UNTIL, primaryUntil);
+    }
+    return response;
+  },
+  async (error) => {
+    const original = error.config;
+    if (error.response?.status === 401 && original && !original._retried && !original.url.startsWith("/auth/")) {
+      original._retried = true;
+      try {
+        const token = await refreshAccessToken();
+        original.headers.Authorization = `Bearer ${token}`;
+        return API(original);
+      } catch {
+        clearTokens();
+        window.location.href = "/";
+      }
     }
     return Promise.reject(error);
   }
@@ -28,6 +76,8 @@ API.interceptors.response.use(
 // Auth API calls
 export const login = (data) => API.post("/auth/login", data);
 export const register = (data) => API.post("/auth/register", data);
+export const logoutAll = () => API.post("/auth/logout-all");
+export const changePassword = (data) => API.post("/auth/password", data);
 
 // Movie API calls with FormData support
 export const addMovie = (data) => {
@@ -56,16 +106,20 @@ export const getMovies = (filters = {}) => {
   return API.get(`/movies${query ? `?${query}` : ""}`);
 };
 
+export const getGenreFacets = () => API.get("/movies/facets");
 export const getMovie = (id) => API.get(`/movies/${id}`);
 export const deleteMovie = (id) => API.delete(`/movies/${id}`);
 
-// Utility function to extract token from the string response
-export const extractTokenFromResponse = (tokenString) => {
-  const match = tokenString.match(/token=([^)]+)/);
-  return match ? match[1] : null;
-};
-
-// Logout utility
-export const logout = () => {
-  localStorage.removeItem("token");
+// Logout utility: revokes the session on the server, then forgets the tokens either way
+export const logout = async () => {
+  const refreshToken = localStorage.getItem("refreshToken");
+  try {
+    if (refreshToken) {
+      await API.post("/auth/logout", { refreshToken });
+    }
+  } catch {
+    // Already expired or revoked
+  } finally {
+    clearTokens();
+  }
 };
@@ -1,15 +1,12 @@
 // // tmdb.js
 import axios from "axios";
 
-const API_KEY = import.meta.env.VITE_TMDB_API_KEY;
-const BASE_URL = "https://api.themoviedb.org/3";
+// TMDB is reached through the server's cached catalog proxy, which holds the API key
+const BASE_URL = `${import.meta.env.VITE_SERVER_URL}/api/catalog`;
 
 // Axios instance
 const tmdbApi = axios.create({
   baseURL: BASE_URL,
-  params: {
-    api_key: API_KEY,
-  },
 });
 
 // Generic API call
@@ -0,0 +1,105 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load: a fixed number of clients each send a request, wait for the response
+ * and send the next one, for a fixed duration. Paths are picked round-robin; "{rand}" in a
+ * path is replaced with a random number so cached endpoints can be forced to miss.
+ * <p>
+ * Run with the JDK source launcher:
+ * java LoadGenerator.java <baseUrl> <token> <clients> <seconds> <path>...
+ */
+public class LoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 5) {
+            System.err.println("usage: java LoadGenerator.java <baseUrl> <token> <clients> <seconds> <path>...");
+            System.exit(2);
+        }
+        String baseUrl = args[0];
+        String token = args[1];
+        int clients = Integer.parseInt(args[2]);
+        long deadline = System.nanoTime() + Duration.ofSeconds(Long.parseLong(args[3])).toNanos();
+        List<String> paths = Arrays.asList(args).subList(4, args.length);
+
+        HttpClient http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        AtomicLong errors = new AtomicLong();
+        List<Recorder> recorders = new ArrayList<>();
+
+        long started = System.nanoTime();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                Recorder recorder = new Recorder();
+                recorders.add(recorder);
+                int offset = c;
+                pool.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        String path = paths.get((offset + recorder.count) % paths.size())
+                                .replace("{rand}", Long.toString(ThreadLocalRandom.current().nextLong(1_000_000_000L)));
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                                .header("Authorization", "Bearer " + token)
+                                .timeout(Duration.ofSeconds(30))
+                                .build();
+                        long t0 = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        recorder.add(System.nanoTime() - t0);
+                    }
+                });
+            }
+        }
+        double elapsed = (System.nanoTime() - started) / 1e9;
+
+        int total = recorders.stream().mapToInt(r -> r.count).sum();
+        long[] all = new long[total];
+        int i = 0;
+        for (Recorder recorder : recorders) {
+            System.arraycopy(recorder.latencies, 0, all, i, recorder.count);
+            i += recorder.count;
+        }
+        Arrays.sort(all);
+        System.out.printf("requests=%d errors=%d throughput=%.0f/s p50=%.1fms p99=%.1fms max=%.1fms%n",
+                total, errors.get(), total / elapsed,
+                percentile(all, 0.50), percentile(all, 0.99), percentile(all, 1.0));
+    }
+
+    // Written by one client thread, read after the pool has been closed
+    private static final class Recorder {
+        long[] latencies = new long[1024];
+        int count;
+
+        void add(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
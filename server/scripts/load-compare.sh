@@ -0,0 +1,57 @@
+#!/bin/bash
+# Runs the same load against the server on platform threads and on virtual threads, with the
+# same heap, and prints throughput and latency for both.
+#
+# The server gets its database, JWT secret etc. from the usual environment variables, extra
+# Spring arguments can be passed in APP_ARGS. The load mixes a database-bound watchlist page
+# with catalog searches that always miss the cache and wait on TMDB (point tmdb.api.url at a
+# slow stub to model upstream latency without hitting the real API).
+#
+#   HEAP=512m CLIENTS=400 DURATION=30 ./scripts/load-compare.sh
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+JAR=${JAR:-target/w2w-app.jar}
+HEAP=${HEAP:-512m}
+CLIENTS=${CLIENTS:-400}
+DURATION=${DURATION:-30}
+PORT=${PORT:-8080}
+BASE=http://localhost:$PORT
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+PATHS=${PATHS:-"/api/movies/page?size=20 /api/catalog/search/movie?query=q{rand}"}
+
+[ -f "$JAR" ] || ./mvnw -B -q -DskipTests package
+
+run() {
+  local virtual=$1
+  local log=target/load-$([ "$virtual" = true ] && echo virtual || echo platform).log
+  # tracePinnedThreads prints a stack whenever a virtual thread blocks while pinned to its carrier
+  "$JAVA" -Xms$HEAP -Xmx$HEAP -Djdk.tracePinnedThreads=short -jar "$JAR" \
+    --server.port=$PORT --spring.threads.virtual.enabled=$virtual --spring.jpa.show-sql=false --rate-limit.enabled=false ${APP_ARGS:-} > "$log" 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null" EXIT
+  for _ in $(seq 1 90); do curl -sf $BASE/api > /dev/null && break; sleep 1; done
+
+  curl -s -X POST $BASE/api/auth/register -H 'Content-Type: application/json' \
+    -d '{"username":"load","email":"load@example.com","password":"load"}' > /dev/null
+  local token
+  token=$(curl -s -X POST $BASE/api/auth/login -H 'Content-Type: application/json' \
+    -d '{"email":"load@example.com","password":"load"}' | sed -E 's/.*"token":"([^"]+)".*/\1/')
+  for n in $(seq 1 20); do
+    curl -s -X POST $BASE/api/movies -H "Authorization: Bearer $token" \
+      -F name="Movie $n" -F description=d -F link=l -F genre=Drama > /dev/null
+  done
+
+  # Warm up, then measure
+  "$JAVA" scripts/LoadGenerator.java $BASE "$token" "$CLIENTS" 5 $PATHS > /dev/null
+  echo -n "virtual=$virtual heap=$HEAP clients=$CLIENTS: "
+  "$JAVA" scripts/LoadGenerator.java $BASE "$token" "$CLIENTS" "$DURATION" $PATHS
+  echo "  pinned-thread reports: $(grep -c '<==' "$log" || true)"
+
+  kill $pid
+  wait $pid 2>/dev/null || true
+  trap - EXIT
+}
+
+run false
+run true
@@ -0,0 +1,27 @@
+#!/bin/bash
+# Starts the server in one of its startup modes; further arguments are passed on to Spring.
+#
+#   ./scripts/start.sh jar      # the plain jar from mvn package
+#   ./scripts/start.sh cds      # the extracted jar with its AppCDS archive, from mvn -Pfast-start package
+#   ./scripts/start.sh fast     # as cds, and with the AOT-generated bean definitions
+#
+# Database, JWT secret etc. come from the usual environment variables. JAVA_OPTS is passed to the JVM.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+MODE=${1:-jar}
+shift || true
+
+case "$MODE" in
+  jar)
+    exec "$JAVA" ${JAVA_OPTS:-} -jar target/w2w-app.jar "$@" ;;
+  cds)
+    exec "$JAVA" ${JAVA_OPTS:-} -XX:SharedArchiveFile=target/fast-start/w2w-app.jsa -jar target/fast-start/w2w-app.jar "$@" ;;
+  fast)
+    exec "$JAVA" ${JAVA_OPTS:-} -XX:SharedArchiveFile=target/fast-start/w2w-app.jsa -Dspring.aot.enabled=true \
+      -jar target/fast-start/w2w-app.jar "$@" ;;
+  *)
+    echo "usage: $0 jar|cds|fast [spring arguments...]" >&2
+    exit 2 ;;
+esac
@@ -0,0 +1,56 @@
+#!/bin/bash
+# Starts the server RUNS times in each mode of start.sh and reports the time from launch to the
+# first successful request, and the resident memory at that point. Modes whose build output is
+# missing are skipped: build with mvn package and mvn -Pfast-start package.
+#
+# The server gets its database, JWT secret etc. from the usual environment variables, extra
+# Spring arguments can be passed in APP_ARGS.
+#
+#   RUNS=5 MODES="jar fast" ./scripts/startup-bench.sh
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS=${RUNS:-5}
+MODES=${MODES:-"jar cds fast"}
+PORT=${PORT:-8080}
+URL=${URL:-http://localhost:$PORT/api}
+
+artifact() {
+  case "$1" in
+    jar) echo target/w2w-app.jar ;;
+    cds|fast) echo target/fast-start/w2w-app.jsa ;;
+  esac
+}
+
+median() {
+  sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+for mode in $MODES; do
+  if [ ! -f "$(artifact "$mode")" ]; then
+    echo "$mode: skipped, $(artifact "$mode") not built"
+    continue
+  fi
+  times=()
+  rss=()
+  for run in $(seq 1 "$RUNS"); do
+    start=$(date +%s%N)
+    scripts/start.sh "$mode" --server.port=$PORT ${APP_ARGS:-} > target/startup-$mode.log 2>&1 &
+    pid=$!
+    trap "kill $pid 2>/dev/null" EXIT
+    until curl -sf "$URL" > /dev/null; do
+      if ! kill -0 $pid 2>/dev/null; then
+        echo "$mode: server exited, see target/startup-$mode.log" >&2
+        exit 1
+      fi
+      sleep 0.02
+    done
+    times+=($(( ($(date +%s%N) - start) / 1000000 )))
+    rss+=($(awk '/^VmRSS/ { print int($2 / 1024) }' /proc/$pid/status))
+    kill $pid
+    wait $pid 2>/dev/null || true
+    trap - EXIT
+  done
+  echo "$mode: first request after $(printf '%s\n' "${times[@]}" | median) ms, RSS $(printf '%s\n' "${rss[@]}" | median) MB" \
+    "(median of $RUNS; ms: ${times[*]})"
+done
@@ -0,0 +1,65 @@
+package com.sb.main.server.benchmark;
+
+import com.sb.main.server.config.JwtUtils;
+import com.sb.main.server.entity.Genre;
+import com.sb.main.server.entity.Movie;
+import com.sb.main.server.entity.PosterStatus;
+import com.sb.main.server.entity.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Objects shared by the suites, built without a Spring context.
+ */
+final class Fixtures {
+
+    static final String JWT_SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+    private Fixtures() {
+    }
+
+    static JwtUtils jwtUtils() {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "secretKey", JWT_SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "accessTokenTtl", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(jwtUtils, "refreshTokenTtl", Duration.ofDays(30));
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    static User user() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("bench");
+        user.setEmail("bench@example.com");
+        return user;
+    }
+
+    static JwtUtils.Session session(User user) {
+        return new JwtUtils.Session(user.getEmail(), user.getId(), 0, "bench-session");
+    }
+
+    static List<Movie> movies(User user, int count) {
+        List<Movie> movies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Movie movie = new Movie();
+            movie.setId((long) i + 1);
+            movie.setName("Movie " + i);
+            movie.setDescription("A reasonably long description of movie number " + i + " to give the payload a realistic size.");
+            movie.setLink("https://www.themoviedb.org/movie/" + i);
+            movie.setGenre(i % 3 == 0 ? "Drama" : "Comedy");
+            movie.setGenreMask(Genre.maskOf(movie.getGenre()));
+            movie.setPosterUrl("https://i.ibb.co/abc" + i + "/poster.jpg");
+            movie.setPosterThumbUrl("https://i.ibb.co/abc" + i + "/poster-thumb.jpg");
+            movie.setPosterMediumUrl("https://i.ibb.co/abc" + i + "/poster-medium.jpg");
+            movie.setPosterStatus(PosterStatus.READY);
+            movie.setVersion(0L);
+            movie.setUser(user);
+            movies.add(movie);
+        }
+        return movies;
+    }
+}
@@ -0,0 +1,87 @@
+package com.sb.main.server.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sb.main.server.config.JwtAuthFilter;
+import com.sb.main.server.config.JwtTokenCache;
+import com.sb.main.server.config.JwtUtils;
+import com.sb.main.server.repository.TokenRevocationRepository;
+import com.sb.main.server.repository.UserRepository;
+import com.sb.main.server.service.TokenRevocationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.FilterChain;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One authenticated request through the JWT filter, with the token cache warm ("hit") or
+ * emptied before every request ("miss": signature check each time). Either way the token is
+ * checked against the in-memory revocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthFilterBenchmark {
+
+    @Param({"hit", "miss"})
+    public String cache;
+
+    private JwtAuthFilter filter;
+    private JwtTokenCache tokenCache;
+    private boolean evictEveryTime;
+    private String authorization;
+    private final FilterChain chain = (request, response) -> {
+    };
+
+    @Setup
+    public void setUp() {
+        JwtUtils jwtUtils = Fixtures.jwtUtils();
+        authorization = "Bearer " + jwtUtils.generateAccessToken(Fixtures.session(Fixtures.user()));
+        TokenRevocationService revocationService = new TokenRevocationService(
+                Mockito.mock(TokenRevocationRepository.class), Mockito.mock(UserRepository.class), new SimpleMeterRegistry());
+        // Loads the (empty) revocations, until then every token is turned away
+        ReflectionTestUtils.setField(revocationService, "pollOverlap", Duration.ofSeconds(30));
+        revocationService.init();
+
+        tokenCache = new JwtTokenCache();
+        ReflectionTestUtils.setField(tokenCache, "maxSize", 10_000);
+        evictEveryTime = "miss".equals(cache);
+        filter = new JwtAuthFilter(jwtUtils, tokenCache, revocationService, ObservationRegistry.NOOP, new ObjectMapper());
+    }
+
+    @Benchmark
+    public MockHttpServletResponse authenticatedRequest() throws Exception {
+        if (evictEveryTime) {
+            tokenCache.invalidateUser(1L);
+        }
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/movies");
+        request.addHeader("Authorization", authorization);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, chain);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return response;
+    }
+}
@@ -0,0 +1,47 @@
+package com.sb.main.server.benchmark;
+
+import com.sb.main.server.config.JwtUtils;
+import com.sb.main.server.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtils jwtUtils;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = Fixtures.jwtUtils();
+        user = Fixtures.user();
+        token = jwtUtils.generateAccessToken(Fixtures.session(user));
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtils.generateAccessToken(Fixtures.session(user));
+    }
+
+    // What JwtAuthFilter does on a token cache miss
+    @Benchmark
+    public JwtUtils.Session parseSession() {
+        return JwtUtils.session(jwtUtils.parseClaims(token), JwtUtils.ACCESS);
+    }
+}
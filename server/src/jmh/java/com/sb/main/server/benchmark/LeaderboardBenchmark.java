@@ -0,0 +1,84 @@
+package com.sb.main.server.benchmark;
+
+import com.sb.main.server.entity.Genre;
+import com.sb.main.server.service.LeaderboardService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The leaderboard's write path: what every added movie costs, with 8 threads adding at once and a
+ * few titles taking most of the additions. The baseline keeps one count per key in a
+ * ConcurrentHashMap, so threads adding the same title contend on its bin; it skips normalizing the
+ * title, which most of movieAdded's time goes to on a machine with few cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class LeaderboardBenchmark {
+
+    private static final int TITLES = 10_000;
+    private static final Genre[] GENRES = Genre.values();
+
+    private LeaderboardService leaderboard;
+    private Map<String, Long> baseline;
+    private String[] names;
+    private long[] genreMasks;
+
+    @Setup
+    public void setUp() {
+        // Never flushed, so it needs no database
+        leaderboard = new LeaderboardService(null, null);
+        baseline = new ConcurrentHashMap<>();
+        Random random = new Random(42);
+        names = new String[TITLES];
+        genreMasks = new long[TITLES];
+        for (int i = 0; i < TITLES; i++) {
+            names[i] = "Movie " + i;
+            genreMasks[i] = GENRES[random.nextInt(GENRES.length)].mask() | GENRES[random.nextInt(GENRES.length)].mask();
+        }
+    }
+
+    @Benchmark
+    public void movieAdded() {
+        int title = popularTitle();
+        leaderboard.movieAdded(names[title], genreMasks[title]);
+    }
+
+    @Benchmark
+    public void mapMerge() {
+        int title = popularTitle();
+        String name = names[title];
+        long hour = System.currentTimeMillis() / 3_600_000L;
+        baseline.merge(name, 1L, Long::sum);
+        baseline.merge(name + '@' + hour, 1L, Long::sum);
+        for (long rest = genreMasks[title]; rest != 0; rest &= rest - 1) {
+            String genre = name + '#' + Long.numberOfTrailingZeros(rest);
+            baseline.merge(genre, 1L, Long::sum);
+            baseline.merge(genre + '@' + hour, 1L, Long::sum);
+        }
+    }
+
+    // Low ids are far more popular than high ones, roughly like real watchlists
+    private static int popularTitle() {
+        return (int) (TITLES * Math.pow(ThreadLocalRandom.current().nextDouble(), 3));
+    }
+}
@@ -0,0 +1,62 @@
+package com.sb.main.server.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sb.main.server.dto.ApiResponse;
+import com.sb.main.server.dto.MovieDTO;
+import com.sb.main.server.entity.Movie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping and the JSON body of GET /api/movies for watchlists of different sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovieSerializationBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int items;
+
+    private List<Movie> movies;
+    private ApiResponse<List<MovieDTO>> response;
+    // Configured like the one Spring MVC uses
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Setup
+    public void setUp() {
+        movies = Fixtures.movies(Fixtures.user(), items);
+        response = new ApiResponse<>(true, "User's watchlist", movies.stream().map(MovieDTO::from).toList());
+    }
+
+    @Benchmark
+    public List<MovieDTO> mapToDto() {
+        return movies.stream().map(MovieDTO::from).toList();
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws Exception {
+        return objectMapper.writeValueAsBytes(new ApiResponse<>(true, "User's watchlist", mapToDto()));
+    }
+}
@@ -0,0 +1,96 @@
+package com.sb.main.server.benchmark;
+
+import com.sb.main.server.ServerApplication;
+import com.sb.main.server.dto.MovieDTO;
+import com.sb.main.server.entity.Movie;
+import com.sb.main.server.entity.User;
+import com.sb.main.server.repository.MovieRepository;
+import com.sb.main.server.repository.UserRepository;
+import com.sb.main.server.service.MovieService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MovieService.getUserMovies against an embedded H2 database in MySQL mode, with the
+ * watchlist cache on and off ("off" caches nothing, so every call queries the database).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovieServiceBenchmark {
+
+    @Param({"10", "1000"})
+    public int items;
+
+    @Param({"on", "off"})
+    public String cache;
+
+    private ConfigurableApplicationContext context;
+    private MovieService movieService;
+    private String email;
+
+    @Setup
+    public void setUp() {
+        // The security configuration needs the servlet stack, so a web server starts on a random port
+        context = new SpringApplicationBuilder(ServerApplication.class)
+                // As command-line arguments: they have to win over application.properties
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        // Flyway builds the MySQL schema, movies_seq included, so Hibernate has to treat H2 as MySQL too
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--jwt.secret=" + Fixtures.JWT_SECRET,
+                        "--imgbb.api.key=unused",
+                        "--frontend.url=http://localhost",
+                        "--catalog.snapshot.enabled=false",
+                        "--watchlist.cache.max-movies-per-user=" + ("on".equals(cache) ? 100_000 : 0));
+        movieService = context.getBean(MovieService.class);
+
+        User user = Fixtures.user();
+        user.setId(null);
+        user.setPassword("unused");
+        user = context.getBean(UserRepository.class).save(user);
+        email = user.getEmail();
+
+        List<Movie> movies = Fixtures.movies(user, items);
+        movies.forEach(movie -> movie.setId(null));
+        context.getBean(MovieRepository.class).saveAll(movies);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MovieDTO> all() {
+        return movieService.getUserMovies(email, null, null, null, true);
+    }
+
+    @Benchmark
+    public List<MovieDTO> byNameAndGenre() {
+        return movieService.getUserMovies(email, "movie 1", "drama", null, true);
+    }
+}
@@ -0,0 +1,91 @@
+package com.sb.main.server.benchmark;
+
+import com.sb.main.server.dto.Recommendation;
+import com.sb.main.server.entity.Genre;
+import com.sb.main.server.service.CooccurrenceModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Similar titles and per-user recommendations over a synthetic model: watchlists of about 200
+ * entries drawn from 50,000 titles with a long-tailed popularity. Sampled, so the result shows
+ * percentiles; the build time and heap used are printed once at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class RecommendationBenchmark {
+
+    private static final int TITLES = 50_000;
+    private static final int WATCHLIST_SIZE = 200;
+    private static final Genre[] GENRES = Genre.values();
+
+    @Param({"100000", "2000000"})
+    public int rows;
+
+    private CooccurrenceModel model;
+    private String[] names;
+    private long[] genreMasks;
+    private int users;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        names = new String[TITLES];
+        genreMasks = new long[TITLES];
+        for (int i = 0; i < TITLES; i++) {
+            names[i] = "Movie " + i;
+            genreMasks[i] = GENRES[random.nextInt(GENRES.length)].mask() | GENRES[random.nextInt(GENRES.length)].mask();
+        }
+        users = Math.max(1, rows / WATCHLIST_SIZE);
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long started = System.nanoTime();
+        CooccurrenceModel.Builder builder = CooccurrenceModel.builder(10, 2);
+        for (int id = 1; id <= rows; id++) {
+            int title = popularTitle(random);
+            builder.add(id, 1 + random.nextInt(users), names[title], genreMasks[title]);
+        }
+        model = builder.build();
+        long builtMillis = (System.nanoTime() - started) / 1_000_000;
+        System.gc();
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+        System.out.printf("%n%d rows: built in %d ms, %d titles, %d MB heap%n", rows, builtMillis,
+                model.itemCount(), (heapAfter - heapBefore) >> 20);
+    }
+
+    @Benchmark
+    public List<Recommendation> similar() {
+        int title = popularTitle(ThreadLocalRandom.current());
+        return model.similar(names[title], genreMasks[title], 10);
+    }
+
+    @Benchmark
+    public List<Recommendation> recommend() {
+        return model.recommend(1 + ThreadLocalRandom.current().nextInt(users), 20, 50);
+    }
+
+    // Low ids are far more popular than high ones, roughly like real watchlists
+    private static int popularTitle(Random random) {
+        return (int) (TITLES * Math.pow(random.nextDouble(), 3));
+    }
+}
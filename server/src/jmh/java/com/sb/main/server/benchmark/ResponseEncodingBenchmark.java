@@ -0,0 +1,86 @@
+package com.sb.main.server.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.sb.main.server.dto.ApiResponse;
+import com.sb.main.server.dto.MovieDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The GET /api/movies body in each encoding a client can ask for, with reflective and Blackbird
+ * property access, with and without the gzip Tomcat applies. Bytes on the wire do not depend on
+ * timing; each trial prints them once at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseEncodingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int items;
+
+    @Param({"json", "smile", "cbor"})
+    public String encoding;
+
+    @Param({"reflection", "blackbird"})
+    public String access;
+
+    private ObjectMapper objectMapper;
+    private ApiResponse<List<MovieDTO>> response;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = switch (encoding) {
+            case "smile" -> Jackson2ObjectMapperBuilder.smile();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+            default -> Jackson2ObjectMapperBuilder.json();
+        };
+        if ("blackbird".equals(access)) {
+            builder.postConfigurer(mapper -> mapper.registerModule(new BlackbirdModule()));
+        }
+        objectMapper = builder.build();
+        response = new ApiResponse<>(true, "User's watchlist", Fixtures.movies(Fixtures.user(), items).stream().map(MovieDTO::from).toList());
+
+        byte[] body = serialize();
+        System.out.printf("%n%s, %d movies: %d bytes, %d gzipped%n", encoding, items, body.length, gzip(body).length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] serializeGzipped() throws IOException {
+        return gzip(serialize());
+    }
+
+    // Deflate's default level, the one Tomcat compresses responses with
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,56 @@
+package com.sb.main.server.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Access log sampling at runtime, next to /actuator/loggers for log levels:
+ * <pre>
+ * POST   /actuator/accesslog                       {"sampleRate": 0.2, "slowThreshold": "300ms"}
+ * POST   /actuator/accesslog/api/movies/{id}       {"sampleRate": 1}
+ * DELETE /actuator/accesslog/api/movies/{id}       back to the default rate
+ * </pre>
+ * Changes apply to this node only and last until it restarts.
+ */
+@Component
+@Endpoint(id = "accesslog")
+@RequiredArgsConstructor
+public class AccessLogEndpoint {
+
+    private final AccessLogFilter accessLogFilter;
+
+    @ReadOperation
+    public AccessLogFilter.Settings settings() {
+        return accessLogFilter.settings();
+    }
+
+    @WriteOperation
+    public AccessLogFilter.Settings configure(@Nullable Boolean enabled, @Nullable Double sampleRate, @Nullable Duration slowThreshold) {
+        accessLogFilter.configure(enabled, sampleRate, slowThreshold);
+        return accessLogFilter.settings();
+    }
+
+    @WriteOperation
+    public AccessLogFilter.Settings configureRoute(@Selector(match = Selector.Match.ALL_REMAINING) String[] route, double sampleRate) {
+        accessLogFilter.configureRoute(route(route), sampleRate);
+        return accessLogFilter.settings();
+    }
+
+    @DeleteOperation
+    public AccessLogFilter.Settings resetRoute(@Selector(match = Selector.Match.ALL_REMAINING) String[] route) {
+        accessLogFilter.configureRoute(route(route), null);
+        return accessLogFilter.settings();
+    }
+
+    private static String route(String[] segments) {
+        return "/" + String.join("/", segments);
+    }
+}
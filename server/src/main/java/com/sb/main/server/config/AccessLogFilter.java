@@ -0,0 +1,154 @@
+package com.sb.main.server.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One structured event per request on the "access" logger, with the route, status, duration
+ * and the number of SQL statements Hibernate ran for it (see {@link QueryCountFilter}). Successful requests are sampled, at
+ * logging.access.sample-rate or a per-route rate; errors and requests slower than
+ * logging.access.slow-threshold are always logged, at WARN for server errors and slow ones.
+ * <p>
+ * The settings can be changed while running through /actuator/accesslog (see
+ * {@link AccessLogEndpoint}).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+@RequiredArgsConstructor
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger("access");
+
+    public record Settings(boolean enabled, double sampleRate, Duration slowThreshold, Map<String, Double> routes) {
+    }
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${logging.access.enabled:true}")
+    private volatile boolean enabled;
+
+    @Value("${logging.access.sample-rate:0.05}")
+    private volatile double sampleRate;
+
+    @Value("${logging.access.slow-threshold:PT0.5S}")
+    private volatile Duration slowThreshold;
+
+    // Keyed by route pattern, e.g. /api/movies/{id}
+    private final Map<String, Double> routeSampleRates = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        routeSampleRates.putAll(Binder.get(environment)
+                .bind("logging.access.routes", Bindable.mapOf(String.class, Double.class))
+                .orElse(Map.of()));
+        FunctionCounter.builder("logging.events.dropped", this, filter -> DroppingAsyncAppender.dropped()).register(meterRegistry);
+    }
+
+    public Settings settings() {
+        return new Settings(enabled, sampleRate, slowThreshold, new TreeMap<>(routeSampleRates));
+    }
+
+    public void configure(Boolean enabled, Double sampleRate, Duration slowThreshold) {
+        if (enabled != null) {
+            this.enabled = enabled;
+        }
+        if (sampleRate != null) {
+            this.sampleRate = rate(sampleRate);
+        }
+        if (slowThreshold != null) {
+            this.slowThreshold = slowThreshold;
+        }
+    }
+
+    /**
+     * Sets the sample rate of one route, or with null goes back to the default rate for it.
+     */
+    public void configureRoute(String route, Double sampleRate) {
+        if (sampleRate == null) {
+            routeSampleRates.remove(route);
+        } else {
+            routeSampleRates.put(route, rate(sampleRate));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            failed = true;
+            throw e;
+        } finally {
+            record(request, failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus(), System.nanoTime() - start);
+        }
+    }
+
+    private void record(HttpServletRequest request, int status, long durationNanos) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = pattern != null ? pattern.toString() : "UNKNOWN";
+        boolean slow = durationNanos >= slowThreshold.toNanos();
+
+        String reason;
+        if (status >= 400) {
+            reason = "error";
+        } else if (slow) {
+            reason = "slow";
+        } else if (ThreadLocalRandom.current().nextDouble() < routeSampleRates.getOrDefault(route, sampleRate)) {
+            reason = "sampled";
+        } else {
+            return;
+        }
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        Object statements = request.getAttribute(QueryCountFilter.STATEMENTS_ATTRIBUTE);
+        log.atLevel(status >= 500 || slow ? Level.WARN : Level.INFO)
+                .addKeyValue("method", request.getMethod())
+                .addKeyValue("route", route)
+                .addKeyValue("path", request.getRequestURI())
+                .addKeyValue("status", status)
+                .addKeyValue("duration_ms", millis)
+                .addKeyValue("sql_statements", statements != null ? statements : 0)
+                .addKeyValue("reason", reason)
+                .log("{} {} {} in {} ms", request.getMethod(), route, status, millis);
+    }
+
+    private static double rate(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1");
+        }
+        return sampleRate;
+    }
+}
@@ -17,6 +17,7 @@ public class CorsConfig implements WebMvcConfigurer {
                 .allowedOrigins(frontendUrl)
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
+                .exposedHeaders(PrimaryStickiness.HEADER)
                 .allowCredentials(true)
                 .maxAge(3600); // cache preflight for 1 hr
     }
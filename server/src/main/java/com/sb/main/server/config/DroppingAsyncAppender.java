@@ -0,0 +1,32 @@
+package com.sb.main.server.config;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logback's async appender, counting the events it drops: with neverBlock a full queue drops
+ * the event instead of making the logging thread wait, and past the discarding threshold
+ * INFO and below are dropped first. Logback instantiates this class from logback-spring.xml,
+ * hence the static counter, exposed as logging.events.dropped by {@link AccessLogFilter}.
+ */
+public class DroppingAsyncAppender extends AsyncAppender {
+
+    private static final LongAdder DROPPED = new LongAdder();
+
+    static long dropped() {
+        return DROPPED.sum();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        // Same checks the base class makes before offering, so the event is counted here
+        // instead of vanishing; an offer that loses a race for the last slot is not counted
+        if (getRemainingCapacity() == 0 || (isQueueBelowDiscardingThreshold() && isDiscardable(event))) {
+            DROPPED.increment();
+            return;
+        }
+        super.append(event);
+    }
+}
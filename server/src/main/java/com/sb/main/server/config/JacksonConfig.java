@@ -0,0 +1,46 @@
+package com.sb.main.server.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NativeDetector;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Response encodings besides JSON: a client that sends Accept: application/x-jackson-smile or
+ * application/cbor gets the same body in that binary form, which drops the repeated field names
+ * and quoting. JSON stays first, so browsers and wildcard Accept headers keep getting JSON.
+ * <p>
+ * The binary converters are built from Boot's builder, so they share the JSON mapper's settings
+ * and modules, Blackbird included.
+ */
+@Configuration
+public class JacksonConfig {
+
+    // Serializes through generated accessors instead of reflection. A native image cannot
+    // define those classes at runtime, so it keeps the reflective path there.
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer blackbirdCustomizer() {
+        return builder -> {
+            if (!NativeDetector.inNativeImage()) {
+                builder.postConfigurer(mapper -> mapper.registerModule(new BlackbirdModule()));
+            }
+        };
+    }
+
+    // Replace the converters Spring MVC would otherwise build without Boot's customizations
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
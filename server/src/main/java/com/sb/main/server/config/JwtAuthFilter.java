@@ -1,12 +1,21 @@
 package com.sb.main.server.config;
 
-import com.sb.main.server.entity.User;
-import com.sb.main.server.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sb.main.server.dto.ApiResponse;
+import com.sb.main.server.exception.ServiceOverloadedException;
+import com.sb.main.server.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -16,12 +25,16 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 import java.util.Collections;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtils;
-    private final UserRepository userRepository;
+    private final JwtTokenCache tokenCache;
+    private final TokenRevocationService revocationService;
+    private final ObservationRegistry observationRegistry;
+    private final ObjectMapper objectMapper;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
@@ -33,26 +46,40 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         try {
             String token = authHeader.substring(7);
-            String email = jwtUtils.extractEmail(token);
 
-            if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                User user = userRepository.findByEmail(email).orElse(null);
-                if (user != null && jwtUtils.validateToken(token, org.springframework.security.core.userdetails.User
-                        .withUsername(user.getEmail())
-                        .password(user.getPassword())
-                        .authorities(Collections.emptyList())
-                        .build())) {
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                JwtTokenCache.CachedToken cached = tokenCache.get(token);
+                if (cached == null) {
+                    // Cold path: one signature/expiry check, then remembered until exp. The token
+                    // carries the user id, so there is no user lookup; refresh tokens are refused.
+                    Claims claims = Observation.createNotStarted("jwt.verification", observationRegistry)
+                            .observe(() -> jwtUtils.parseClaims(token));
+                    JwtUtils.Session session = JwtUtils.session(claims, JwtUtils.ACCESS);
+                    if (session != null) {
+                        cached = new JwtTokenCache.CachedToken(session.email(), session.userId(), session.generation(),
+                                session.sessionId(), claims.getExpiration().getTime());
+                        tokenCache.put(token, cached);
+                    }
+                }
 
+                if (cached != null && !revocationService.isRevoked(cached.userId(), cached.generation(), cached.sessionId())) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            user.getEmail(), null, Collections.emptyList()
+                            cached.email(), null, Collections.emptyList()
                     );
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
             }
+        } catch (ServiceOverloadedException e) {
+            // Revocations are not loaded yet: a 401 would sign the client out, so ask it to retry instead
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), new ApiResponse<>(false, e.getMessage(), null));
+            return;
         } catch (Exception e) {
-            // Log the error but don't block the request
-            System.out.println("JWT processing error: " + e.getMessage());
+            // Log the error but don't block the request; the access log shows the resulting 401
+            log.debug("JWT processing error: {}", e.getMessage());
         }
 
         filterChain.doFilter(request, response);
@@ -0,0 +1,68 @@
+package com.sb.main.server.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded cache of already verified JWTs, so a warm request needs no signature
+ * check. Entries die with the token's own expiry and are dropped whenever the
+ * owning user changes; revocation is checked on every request regardless.
+ */
+@Component
+public class JwtTokenCache {
+
+    @Value("${jwt.cache.max-size:10000}")
+    private int maxSize;
+
+    private final Map<String, CachedToken> tokens = new ConcurrentHashMap<>();
+
+    public record CachedToken(String email, Long userId, long generation, String sessionId, long expiresAt) {
+        boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+
+    public CachedToken get(String token) {
+        CachedToken cached = tokens.get(token);
+        if (cached != null && cached.isExpired(System.currentTimeMillis())) {
+            tokens.remove(token, cached);
+            return null;
+        }
+        return cached;
+    }
+
+    public void put(String token, CachedToken cached) {
+        if (tokens.size() >= maxSize) {
+            makeRoom();
+        }
+        tokens.put(token, cached);
+    }
+
+    public void invalidateUser(Long userId) {
+        tokens.values().removeIf(cached -> cached.userId().equals(userId));
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    private void makeRoom() {
+        long now = System.currentTimeMillis();
+        tokens.values().removeIf(cached -> cached.isExpired(now));
+        if (tokens.size() < maxSize) {
+            return;
+        }
+
+        // Still full of live tokens: drop an arbitrary tenth, evicted tokens simply get re-verified
+        int toEvict = tokens.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<String> it = tokens.keySet().iterator();
+        while (toEvict-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
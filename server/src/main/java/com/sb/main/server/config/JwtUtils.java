@@ -1,60 +1,96 @@
 package com.sb.main.server.config;
 
-import com.sb.main.server.entity.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
-import java.security.Key;
+import java.time.Duration;
 import java.util.Date;
 
 @Component
 public class JwtUtils {
 
+    public static final String ACCESS = "access";
+    public static final String REFRESH = "refresh";
+
+    private static final String USER_ID = "uid";
+    private static final String GENERATION = "gen";
+    private static final String SESSION_ID = "sid";
+    private static final String TOKEN_USE = "token_use";
+
+    /**
+     * What a token says about its bearer. The session id is shared by a sign-in's refresh token
+     * and every access token issued from it, so signing out revokes them together.
+     */
+    public record Session(String email, long userId, long generation, String sessionId) {
+    }
+
     @Value("${jwt.secret}")
     private String secretKey;
-    private Key key;
+
+    @Value("${jwt.access-token-ttl:PT15M}")
+    private Duration accessTokenTtl;
+
+    @Value("${jwt.refresh-token-ttl:P30D}")
+    private Duration refreshTokenTtl;
+    private SecretKey key;
+    private JwtParser parser;
 
     @PostConstruct
     public void init() {
         this.key = Keys.hmacShaKeyFor(secretKey.getBytes());
+        // The parser is immutable and thread-safe, build it once instead of per call
+        this.parser = Jwts.parser().verifyWith(key).build();
     }
 
-    public String generateToken(User user) {
-        return Jwts.builder()
-                .subject(user.getEmail())
-                .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60)) // 1 hour
-                .signWith(key)
-                .compact();
+    public String generateAccessToken(Session session) {
+        return generate(session, ACCESS, accessTokenTtl);
+    }
+
+    public String generateRefreshToken(Session session) {
+        return generate(session, REFRESH, refreshTokenTtl);
+    }
+
+    public Duration getAccessTokenTtl() {
+        return accessTokenTtl;
     }
 
-    public String extractEmail(String token) {
-        return Jwts.parser()
-                .verifyWith((SecretKey) key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+    /**
+     * Verifies the signature and expiry of the token and returns its claims.
+     * Throws a JwtException if the token is invalid or expired.
+     */
+    public Claims parseClaims(String token) {
+        return parser.parseSignedClaims(token).getPayload();
     }
 
-    public boolean validateToken(String token, UserDetails userDetails) {
-        final String email = extractEmail(token);
-        return (email.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    /**
+     * The session of a verified token of the given use, or null if the token is of another use
+     * or was issued before tokens carried a session.
+     */
+    public static Session session(Claims claims, String use) {
+        if (!use.equals(claims.get(TOKEN_USE, String.class))) {
+            return null;
+        }
+        return new Session(claims.getSubject(), claims.get(USER_ID, Long.class),
+                claims.get(GENERATION, Long.class), claims.get(SESSION_ID, String.class));
     }
 
-    private boolean isTokenExpired(String token) {
-        Date expiration = Jwts.parser()
-                .verifyWith((SecretKey) key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getExpiration();
-        return expiration.before(new Date());
+    private String generate(Session session, String use, Duration ttl) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .subject(session.email())
+                .claim(USER_ID, session.userId())
+                .claim(GENERATION, session.generation())
+                .claim(SESSION_ID, session.sessionId())
+                .claim(TOKEN_USE, use)
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + ttl.toMillis()))
+                .signWith(key)
+                .compact();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,27 @@
+package com.sb.main.server.config;
+
+import com.sb.main.server.service.LeaderboardService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the leaderboard counts once the application has started, counting them from the movies
+ * table first when title_counts has none yet or the application was started with
+ * --rebuild-leaderboard.
+ */
+@Component
+@RequiredArgsConstructor
+public class LeaderboardInitializer implements ApplicationRunner {
+
+    private final LeaderboardService leaderboardService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption("rebuild-leaderboard") || leaderboardService.needsRecount()) {
+            leaderboardService.recount();
+        }
+        leaderboardService.load();
+    }
+}
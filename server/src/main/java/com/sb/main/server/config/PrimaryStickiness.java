@@ -0,0 +1,81 @@
+package com.sb.main.server.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+
+/**
+ * Read-your-writes with read replicas: a client that has just written keeps reading from the
+ * primary for datasource.replica.sticky-window, which should exceed the replication lag.
+ * Does nothing when no replica is configured.
+ * <p>
+ * The client carries the state, so it holds whichever node serves its next request: a write
+ * answers with {@link #HEADER} set to the epoch millis until which reads must go to the
+ * primary, and the client sends it back on its requests until then. Node clocks only need to
+ * agree to well within the window.
+ */
+@Component
+public class PrimaryStickiness {
+
+    public static final String HEADER = "X-Primary-Until";
+
+    private static final String STICKY_UNTIL = PrimaryStickiness.class.getName() + ".stickyUntil";
+
+    @Value("${datasource.replica.urls:}")
+    private String replicaUrls;
+
+    @Value("${datasource.replica.sticky-window:PT5S}")
+    private Duration window;
+
+    /**
+     * Call before announcing the write, e.g. by bumping the watchlist version, so that a reader
+     * who learns of it also reads from the primary. Outside a request, e.g. on a background
+     * upload, there is no client to tell and this does nothing.
+     */
+    public void wrote() {
+        if (replicaUrls.isBlank() || !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes request)) {
+            return;
+        }
+        long until = System.currentTimeMillis() + window.toMillis();
+        // The rest of this request reads its own write as well
+        request.setAttribute(STICKY_UNTIL, until, RequestAttributes.SCOPE_REQUEST);
+        HttpServletResponse response = request.getResponse();
+        if (response != null) {
+            response.setHeader(HEADER, Long.toString(until));
+        }
+    }
+
+    /**
+     * Whether the current request comes from a client that wrote within the window.
+     */
+    public boolean isSticky() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes request)) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (request.getAttribute(STICKY_UNTIL, RequestAttributes.SCOPE_REQUEST) instanceof Long until && now < until) {
+            return true;
+        }
+        long sent = parse(request.getRequest());
+        // A value further out than one window was not issued here: it could pin a client to the primary for good
+        return now < sent && sent <= now + window.toMillis();
+    }
+
+    private static long parse(HttpServletRequest request) {
+        String value = request.getHeader(HEADER);
+        if (value == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+}
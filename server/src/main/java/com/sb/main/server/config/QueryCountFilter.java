@@ -0,0 +1,86 @@
+package com.sb.main.server.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Records how many SQL statements each request ran, per endpoint, and flags statements that
+ * ran suspiciously often within one request: the signature of an N+1 load such as touching
+ * Movie.user on every movie of a list.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@RequiredArgsConstructor
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    // The request's statement count, for the access log
+    static final String STATEMENTS_ATTRIBUTE = QueryCountFilter.class.getName() + ".statements";
+
+    private static final Pattern FROM_TABLE = Pattern.compile("\\bfrom\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${metrics.n-plus-one.threshold:5}")
+    private int nPlusOneThreshold;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        QueryCountInspector.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Map<String, Integer> statements = QueryCountInspector.end();
+            // The matched route, not the raw path, to keep the tag bounded
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+            int total = statements.values().stream().mapToInt(Integer::intValue).sum();
+            request.setAttribute(STATEMENTS_ATTRIBUTE, total);
+            DistributionSummary.builder("hibernate.request.statements")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(total);
+
+            statements.forEach((sql, count) -> {
+                // Batched inserts legitimately repeat one statement, only repeated reads are suspicious
+                if (count >= nPlusOneThreshold && sql.regionMatches(true, 0, "select", 0, 6)) {
+                    Counter.builder("hibernate.n_plus_one")
+                            .tag("uri", uri)
+                            .tag("table", table(sql))
+                            .register(meterRegistry)
+                            .increment();
+                    log.atWarn()
+                            .addKeyValue("route", uri)
+                            .addKeyValue("table", table(sql))
+                            .addKeyValue("count", count)
+                            .log("Possible N+1 on {} {}: ran {} times: {}", request.getMethod(), uri, count, sql);
+                }
+            });
+        }
+    }
+
+    private static String table(String sql) {
+        Matcher matcher = FROM_TABLE.matcher(sql);
+        return matcher.find() ? matcher.group(1) : "unknown";
+    }
+}
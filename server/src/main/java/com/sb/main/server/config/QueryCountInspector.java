@@ -0,0 +1,38 @@
+package com.sb.main.server.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while a request is being
+ * handled (see {@link QueryCountFilter}). Hibernate instantiates this class itself through
+ * hibernate.session_factory.statement_inspector, hence the static state.
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    private static final ThreadLocal<Map<String, Integer>> CURRENT = new ThreadLocal<>();
+
+    static void begin() {
+        CURRENT.set(new HashMap<>());
+    }
+
+    /**
+     * Statements seen since {@link #begin()}, each with the number of times it ran.
+     */
+    static Map<String, Integer> end() {
+        Map<String, Integer> counts = CURRENT.get();
+        CURRENT.remove();
+        return counts == null ? Map.of() : counts;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Map<String, Integer> counts = CURRENT.get();
+        if (counts != null) {
+            counts.merge(sql, 1, Integer::sum);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,120 @@
+package com.sb.main.server.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sb.main.server.dto.ApiResponse;
+import com.sb.main.server.service.RateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits /api per route group, keyed by the signed-in user or, for anonymous requests
+ * such as sign-in, by client IP. Runs after {@link JwtAuthFilter} so the user is known.
+ * <p>
+ * The client IP is the remote address as resolved by server.forward-headers-strategy, so
+ * clients behind the hosting proxy are not all counted as the proxy.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rate-limit.auth.per-minute:10}")
+    private int authPerMinute;
+
+    @Value("${rate-limit.auth.burst:5}")
+    private int authBurst;
+
+    @Value("${rate-limit.write.per-minute:60}")
+    private int writePerMinute;
+
+    @Value("${rate-limit.write.burst:20}")
+    private int writeBurst;
+
+    @Value("${rate-limit.read.per-minute:600}")
+    private int readPerMinute;
+
+    @Value("${rate-limit.read.burst:100}")
+    private int readBurst;
+
+    private Map<String, RateLimiter.Limit> limits;
+    private Map<String, Counter> rejected;
+
+    @PostConstruct
+    public void init() {
+        limits = Map.of(
+                "auth", new RateLimiter.Limit(authPerMinute, authBurst),
+                "write", new RateLimiter.Limit(writePerMinute, writeBurst),
+                "read", new RateLimiter.Limit(readPerMinute, readBurst));
+        rejected = Map.of(
+                "auth", Counter.builder("ratelimit.rejected").tag("group", "auth").register(meterRegistry),
+                "write", Counter.builder("ratelimit.rejected").tag("group", "write").register(meterRegistry),
+                "read", Counter.builder("ratelimit.rejected").tag("group", "read").register(meterRegistry));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled
+                || HttpMethod.OPTIONS.matches(request.getMethod())
+                || !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String group = group(request);
+        long wait = rateLimiter.tryAcquire(group + ":" + client(request), limits.get(group));
+        if (wait == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        rejected.get(group).increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiResponse<>(false, "Too many requests, try again shortly", null));
+    }
+
+    private static String group(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/api/auth/")) {
+            return "auth";
+        }
+        String method = request.getMethod();
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) ? "read" : "write";
+    }
+
+    private static String client(HttpServletRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken)) {
+            return "user:" + auth.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,22 @@
+package com.sb.main.server.config;
+
+import com.sb.main.server.service.RecommendationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the recommendation model from the movies table once the application has started.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecommendationInitializer implements ApplicationRunner {
+
+    private final RecommendationService recommendationService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        recommendationService.rebuild();
+    }
+}
@@ -0,0 +1,24 @@
+package com.sb.main.server.config;
+
+import io.micrometer.common.KeyValue;
+import org.springframework.http.client.observation.ClientRequestObservationContext;
+import org.springframework.http.client.observation.DefaultClientRequestObservationConvention;
+
+import java.net.URI;
+
+/**
+ * Outbound HTTP observations without the query string in the http.url span attribute. The
+ * ImgBB and TMDB clients pass their API keys as query parameters.
+ */
+public class RedactedUrlObservationConvention extends DefaultClientRequestObservationConvention {
+
+    @Override
+    protected KeyValue requestUri(ClientRequestObservationContext context) {
+        KeyValue url = super.requestUri(context);
+        URI uri = context.getCarrier() != null ? context.getCarrier().getURI() : null;
+        if (uri == null || uri.getRawQuery() == null) {
+            return url;
+        }
+        return KeyValue.of(url.getKey(), uri.getScheme() + "://" + uri.getRawAuthority() + uri.getRawPath());
+    }
+}
@@ -0,0 +1,98 @@
+package com.sb.main.server.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import net.ttddyy.observation.boot.autoconfigure.DataSourceObservationBeanPostProcessor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends read-only transactions to read replicas and everything else to the primary. Only
+ * active when datasource.replica.urls lists at least one replica; replicas use the primary's
+ * credentials and pool settings.
+ * <p>
+ * The lazy proxy holds off fetching a connection until the first statement, by which time
+ * the transaction has marked it read-only, and then takes it from the replica side.
+ */
+@Configuration
+@ConditionalOnExpression("!'${datasource.replica.urls:}'.isBlank()")
+@RequiredArgsConstructor
+public class ReplicaDataSourceConfig {
+
+    private final PrimaryStickiness stickiness;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+    private final ObjectProvider<DataSourceObservationBeanPostProcessor> jdbcObservation;
+
+    @Value("${datasource.replica.urls}")
+    private List<String> replicaUrls;
+
+    // Short, so reads fail over quickly instead of queueing on a dead replica
+    @Value("${datasource.replica.connection-timeout:PT2S}")
+    private Duration replicaConnectionTimeout;
+
+    private HikariDataSource primary;
+    private ReplicaRoutingDataSource replicas;
+
+    @Bean
+    public DataSource routingDataSource(DataSourceProperties properties) {
+        primary = pool(properties, properties.determineUrl(), "primary");
+
+        List<ReplicaRoutingDataSource.Replica> pools = new ArrayList<>();
+        for (String url : replicaUrls) {
+            HikariDataSource replica = pool(properties, url.trim(), "replica-" + pools.size());
+            replica.setConnectionTimeout(replicaConnectionTimeout.toMillis());
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            pools.add(new ReplicaRoutingDataSource.Replica(replica, observed(replica)));
+        }
+        DataSource observedPrimary = observed(primary);
+        replicas = new ReplicaRoutingDataSource(observedPrimary, pools, stickiness, meterRegistry);
+
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(observedPrimary);
+        routing.setReadOnlyDataSource(replicas);
+        return routing;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.health-check-interval:PT10S}")
+    public void checkReplicas() {
+        replicas.checkHealth();
+    }
+
+    @PreDestroy
+    public void close() {
+        replicas.close();
+        primary.close();
+    }
+
+    // The observation proxy reads connection metadata as soon as it gets a connection. Around the
+    // lazy proxy that would fetch the target before the transaction marks it read-only.
+    private DataSource observed(HikariDataSource pool) {
+        DataSourceObservationBeanPostProcessor processor = jdbcObservation.getIfAvailable();
+        return processor == null ? pool : (DataSource) processor.postProcessAfterInitialization(pool, pool.getPoolName());
+    }
+
+    private HikariDataSource pool(DataSourceProperties properties, String url, String name) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        return pool;
+    }
+}
@@ -0,0 +1,120 @@
+package com.sb.main.server.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The read-only side of the datasource: hands out connections from the replica pools in turn,
+ * skipping replicas that failed their last health check, and from the primary when none is
+ * healthy or the client of the current request has just written (see {@link PrimaryStickiness}).
+ */
+@Slf4j
+class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    static final class Replica {
+        private final HikariDataSource pool;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        // dataSource serves reads and may wrap pool; health checks go to the pool directly
+        Replica(HikariDataSource pool, DataSource dataSource) {
+            this.pool = pool;
+            this.dataSource = dataSource;
+        }
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final PrimaryStickiness stickiness;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Counter replicaReads;
+    private final Counter stickyReads;
+    private final Counter failoverReads;
+
+    ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, PrimaryStickiness stickiness, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.stickiness = stickiness;
+        replicaReads = Counter.builder("datasource.reads").tag("target", "replica").tag("reason", "read-only").register(meterRegistry);
+        stickyReads = Counter.builder("datasource.reads").tag("target", "primary").tag("reason", "sticky").register(meterRegistry);
+        failoverReads = Counter.builder("datasource.reads").tag("target", "primary").tag("reason", "failover").register(meterRegistry);
+        for (Replica replica : replicas) {
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("pool", replica.pool.getPoolName())
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (stickiness.isSticky()) {
+            stickyReads.increment();
+            return primary.getConnection();
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException e) {
+                markDown(replica, e);
+            }
+        }
+        failoverReads.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica pools use the configured credentials");
+    }
+
+    /**
+     * Probes every replica, including the ones marked down, so a recovered replica is used again.
+     */
+    void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection()) {
+                if (connection.isValid(2)) {
+                    if (!replica.healthy) {
+                        log.info("Replica {} is back, routing reads to it", replica.pool.getPoolName());
+                    }
+                    replica.healthy = true;
+                } else {
+                    markDown(replica, null);
+                }
+            } catch (SQLException e) {
+                markDown(replica, e);
+            }
+        }
+    }
+
+    void close() {
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private static void markDown(Replica replica, SQLException cause) {
+        if (replica.healthy) {
+            log.warn("Replica {} is unavailable, reads fall back to the primary{}", replica.pool.getPoolName(),
+                    cause == null ? "" : ": " + cause.getMessage());
+        }
+        replica.healthy = false;
+    }
+}
@@ -0,0 +1,29 @@
+package com.sb.main.server.config;
+
+import com.sb.main.server.service.MovieSearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds the search index from the database on a cold start, when the persisted index
+ * was not committed cleanly or is out of step with the movies table, or when started with
+ * --rebuild-search-index.
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchIndexInitializer implements ApplicationRunner {
+
+    private final MovieSearchService movieSearchService;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (args.containsOption("rebuild-search-index")
+                || !movieSearchService.isInSync()) {
+            movieSearchService.rebuild();
+        } else {
+            movieSearchService.markReady();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.sb.main.server.config;
+
+import com.sb.main.server.service.TokenRevocationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Down until the node has loaded the token revocations, so the load balancer keeps signed-in
+ * traffic away from it. Part of the readiness group.
+ */
+@Component
+@RequiredArgsConstructor
+public class TokenRevocationHealthIndicator implements HealthIndicator {
+
+    private final TokenRevocationService revocationService;
+
+    @Override
+    public Health health() {
+        return revocationService.isLoaded()
+                ? Health.up().build()
+                : Health.down().withDetail("reason", "Token revocations not loaded yet").build();
+    }
+}
@@ -0,0 +1,29 @@
+package com.sb.main.server.config;
+
+import com.sb.main.server.entity.User;
+import com.sb.main.server.service.WatchlistCache;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops cached tokens and the cached watchlist of a user whenever the user row is updated or removed.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserChangeListener {
+
+    private final JwtTokenCache tokenCache;
+    // Created with the entity manager factory, which the cache's version lookups need themselves
+    @Lazy
+    private final WatchlistCache watchlistCache;
+
+    @PostUpdate
+    @PostRemove
+    public void onUserChanged(User user) {
+        tokenCache.invalidateUser(user.getId());
+        watchlistCache.invalidateUser(user.getId());
+    }
+}
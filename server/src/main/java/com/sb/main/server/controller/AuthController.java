@@ -3,10 +3,14 @@ package com.sb.main.server.controller;
 import com.sb.main.server.dto.ApiResponse;
 import com.sb.main.server.dto.AuthRequest;
 import com.sb.main.server.dto.AuthResponse;
+import com.sb.main.server.dto.PasswordChangeRequest;
+import com.sb.main.server.dto.RefreshRequest;
 import com.sb.main.server.dto.RegisterRequest;
 import com.sb.main.server.service.AuthService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -23,9 +27,41 @@ public class AuthController {
 
     @PostMapping("/login")
     public ResponseEntity<ApiResponse<AuthResponse>> login(@RequestBody AuthRequest request) {
-        String token = String.valueOf(authService.login(request));
-        AuthResponse response = new AuthResponse(token);
+        AuthResponse response = authService.login(request);
         return ResponseEntity.ok(new ApiResponse<>(true, "Login successful", response));
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<ApiResponse<AuthResponse>> refresh(@RequestBody RefreshRequest request) {
+        AuthResponse response = authService.refresh(request.getRefreshToken());
+        return ResponseEntity.ok(new ApiResponse<>(true, "Token refreshed", response));
+    }
+
+    // Takes the refresh token from the body, or else the bearer token; either signs out the same session
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse<String>> logout(
+            @RequestBody(required = false) RefreshRequest request,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization
+    ) {
+        String token = request != null && request.getRefreshToken() != null ? request.getRefreshToken()
+                : authorization != null && authorization.startsWith("Bearer ") ? authorization.substring(7)
+                : null;
+        if (token == null) {
+            throw new IllegalArgumentException("No token to sign out");
+        }
+        authService.logout(token);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Logged out", null));
+    }
+
+    @PostMapping("/logout-all")
+    public ResponseEntity<ApiResponse<String>> logoutAll(Authentication auth) {
+        authService.logoutEverywhere(auth.getName());
+        return ResponseEntity.ok(new ApiResponse<>(true, "Logged out on all devices", null));
+    }
+
+    @PostMapping("/password")
+    public ResponseEntity<ApiResponse<AuthResponse>> changePassword(@RequestBody PasswordChangeRequest request, Authentication auth) {
+        AuthResponse response = authService.changePassword(auth.getName(), request);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Password changed", response));
+    }
 }
@@ -0,0 +1,44 @@
+package com.sb.main.server.controller;
+
+import com.sb.main.server.service.CatalogService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * TMDB metadata relayed from the server-side cache. Paths mirror TMDB's own
+ * (e.g. /api/catalog/trending/movie/week) and bodies are TMDB's JSON unchanged.
+ */
+@RestController
+@RequestMapping(CatalogController.BASE_PATH)
+@RequiredArgsConstructor
+public class CatalogController {
+
+    static final String BASE_PATH = "/api/catalog";
+
+    private final CatalogService catalogService;
+
+    @GetMapping("/**")
+    public ResponseEntity<byte[]> get(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length() + BASE_PATH.length());
+        CatalogService.CatalogResponse response = catalogService.fetch(path, request.getParameterMap());
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.maxAge(response.ttl()).cachePublic());
+
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (response.gzipBody() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            // Pre-compressed snapshot: sent as is, no serialization and no compression per request
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .body(response.gzipBody());
+        }
+        return builder.body(response.body());
+    }
+}
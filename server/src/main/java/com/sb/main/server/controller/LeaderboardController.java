@@ -0,0 +1,51 @@
+package com.sb.main.server.controller;
+
+import com.sb.main.server.dto.ApiResponse;
+import com.sb.main.server.dto.LeaderboardEntry;
+import com.sb.main.server.entity.Genre;
+import com.sb.main.server.service.LeaderboardService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/leaderboard")
+@RequiredArgsConstructor
+public class LeaderboardController {
+
+    private final LeaderboardService leaderboardService;
+
+    @Value("${leaderboard.flush-interval:PT10S}")
+    private Duration flushInterval;
+
+    @Value("${leaderboard.size:100}")
+    private int size;
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<LeaderboardEntry>>> getLeaderboard(
+            @RequestParam(defaultValue = "7d") String window,
+            @RequestParam(required = false) String genre,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        Genre filter = null;
+        if (genre != null && !genre.isBlank()) {
+            filter = Genre.find(genre);
+            if (filter == null) {
+                throw new IllegalArgumentException("Unknown genre: " + genre.trim());
+            }
+        }
+        List<LeaderboardEntry> entries = leaderboardService.top(LeaderboardService.Window.parse(window), filter, Math.max(1, Math.min(limit, size)));
+        // The same for every user, and only re-ranked once per flush
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(flushInterval).cachePublic())
+                .body(new ApiResponse<>(true, "Most watchlisted titles", entries));
+    }
+}
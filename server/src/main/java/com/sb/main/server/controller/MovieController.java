@@ -1,18 +1,30 @@
 package com.sb.main.server.controller;
 
 import com.sb.main.server.dto.ApiResponse;
+import com.sb.main.server.dto.GenreFacet;
 import com.sb.main.server.dto.MovieDTO;
 
+import com.sb.main.server.dto.BatchImportResult;
+import com.sb.main.server.dto.MoviePage;
+import com.sb.main.server.dto.Recommendation;
+import com.sb.main.server.service.MovieBatchService;
 import com.sb.main.server.service.MovieService;
+import com.sb.main.server.service.WatchlistVersionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/movies")
@@ -20,6 +32,8 @@ import java.util.List;
 public class MovieController {
 
     private final MovieService movieService;
+    private final MovieBatchService movieBatchService;
+    private final WatchlistVersionService watchlistVersionService;
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<ApiResponse<MovieDTO>> addMovie(
@@ -52,16 +66,106 @@ public class MovieController {
     public ResponseEntity<ApiResponse<List<MovieDTO>>> getUserMovies(
             @RequestParam(required = false) String name,
             @RequestParam(required = false) String genre,
+            @RequestParam(required = false) String genres,
+            @RequestParam(defaultValue = "all") String match,
+            Authentication auth,
+            WebRequest request
+    ) {
+        boolean matchAll = switch (match.toLowerCase(Locale.ROOT)) {
+            case "all" -> true;
+            case "any" -> false;
+            default -> throw new IllegalArgumentException("match must be all or any");
+        };
+        // Taken before the query: a concurrent write can only make the ETag older than the body, never newer
+        String etag = watchlistVersionService.watchlistEtag(auth.getName(), name, genre, genres, matchAll);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        List<MovieDTO> movies = movieService.getUserMovies(auth.getName(), name, genre, genres, matchAll);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(new ApiResponse<>(true, "User's watchlist", movies));
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<ApiResponse<List<GenreFacet>>> getGenreFacets(Authentication auth, WebRequest request) {
+        String etag = watchlistVersionService.watchlistEtag(auth.getName(), "facets");
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        List<GenreFacet> facets = movieService.getGenreFacets(auth.getName());
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(new ApiResponse<>(true, "Genre counts", facets));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<List<MovieDTO>>> searchUserMovies(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "50") int limit,
+            Authentication auth
+    ) throws IOException {
+        List<MovieDTO> movies = movieService.searchUserMovies(auth.getName(), query, Math.max(1, Math.min(limit, 200)));
+        return ResponseEntity.ok(new ApiResponse<>(true, "Search results", movies));
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<ApiResponse<MoviePage>> getUserMoviesPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
             Authentication auth
     ) {
-        List<MovieDTO> movies = movieService.getUserMovies(auth.getName(), name, genre);
-        return ResponseEntity.ok(new ApiResponse<>(true, "User's watchlist", movies));
+        MoviePage page = movieService.getUserMoviesPage(auth.getName(), cursor, size);
+        return ResponseEntity.ok(new ApiResponse<>(true, "User's watchlist page", page));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamUserMovies(Authentication auth, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        movieBatchService.exportMovies(auth.getName(), MediaType.APPLICATION_NDJSON, response.getOutputStream());
+    }
+
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<ApiResponse<BatchImportResult>> importMovies(HttpServletRequest request, Authentication auth) throws IOException {
+        BatchImportResult result = movieBatchService.importMovies(auth.getName(), MediaType.parseMediaType(request.getContentType()), request.getInputStream());
+        return ResponseEntity.ok(new ApiResponse<>(result.getFailed() == 0, "Imported " + result.getImported() + " movies", result));
+    }
+
+    @GetMapping("/export")
+    public void exportMovies(@RequestParam(defaultValue = "ndjson") String format, Authentication auth, HttpServletResponse response) throws IOException {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        response.setContentType(csv ? "text/csv;charset=UTF-8" : MediaType.APPLICATION_NDJSON_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"watchlist." + (csv ? "csv" : "ndjson") + "\"");
+        movieBatchService.exportMovies(auth.getName(), csv ? MediaType.parseMediaType("text/csv") : MediaType.APPLICATION_NDJSON, response.getOutputStream());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<MovieDTO>> getMovieById(@PathVariable Long id, Authentication auth) {
+    public ResponseEntity<ApiResponse<MovieDTO>> getMovieById(@PathVariable Long id, Authentication auth, WebRequest request) {
+        // Served from the cached watchlist while it is current, so this costs no more than the check itself
         MovieDTO movie = movieService.getMovieById(id, auth.getName());
-        return ResponseEntity.ok(new ApiResponse<>(true, "Movie found", movie));
+        String etag = watchlistVersionService.movieEtag(id, movie.getVersion());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(new ApiResponse<>(true, "Movie found", movie));
+    }
+
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<ApiResponse<List<Recommendation>>> getSimilarMovies(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "10") int limit,
+            Authentication auth
+    ) {
+        List<Recommendation> similar = movieService.getSimilarMovies(id, auth.getName(), Math.max(1, Math.min(limit, 100)));
+        return ResponseEntity.ok(new ApiResponse<>(true, "Similar titles", similar));
     }
 
     @DeleteMapping("/{id}")
@@ -0,0 +1,84 @@
+package com.sb.main.server.controller;
+
+import com.sb.main.server.service.LocalPosterStorage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Serves posters kept by LocalPosterStorage. Paths are content hashes, so responses are
+ * immutable: strong ETag from the hash and a one year cache lifetime.
+ */
+@RestController
+@RequestMapping("/posters")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "poster.storage", havingValue = "local")
+public class PosterController {
+
+    // Tomcat's NIO connector hands these files to the kernel with sendfile()
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final LocalPosterStorage posterStorage;
+
+    @GetMapping("/{hash}/{variant}")
+    public void getPoster(@PathVariable String hash, @PathVariable String variant,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = posterStorage.resolve(hash, variant);
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String etag = "\"" + hash + "-" + variant + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long size = Files.size(file);
+        response.setContentType(contentType(file, variant));
+        response.setContentLengthLong(size);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.transferTo(0, size, Channels.newChannel(response.getOutputStream()));
+        }
+    }
+
+    private static String contentType(Path file, String variant) throws IOException {
+        if (!LocalPosterStorage.ORIGINAL.equals(variant)) {
+            return "image/jpeg";
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            String type = URLConnection.guessContentTypeFromStream(in);
+            return type != null ? type : "application/octet-stream";
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.sb.main.server.controller;
+
+import com.sb.main.server.dto.ApiResponse;
+import com.sb.main.server.dto.Recommendation;
+import com.sb.main.server.service.MovieService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/recommendations")
+@RequiredArgsConstructor
+public class RecommendationController {
+
+    private final MovieService movieService;
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<Recommendation>>> getRecommendations(
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication auth
+    ) {
+        List<Recommendation> recommendations = movieService.getRecommendations(auth.getName(), Math.max(1, Math.min(limit, 100)));
+        return ResponseEntity.ok(new ApiResponse<>(true, "Recommended titles", recommendations));
+    }
+}
@@ -7,4 +7,7 @@ import lombok.Data;
 @AllArgsConstructor
 public class AuthResponse {
     private String token;
+    private String refreshToken;
+    // Lifetime of token in seconds
+    private long expiresIn;
 }
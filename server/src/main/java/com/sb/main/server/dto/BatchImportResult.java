@@ -0,0 +1,24 @@
+package com.sb.main.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class BatchImportResult {
+    private int imported;
+    private int failed;
+    private List<ItemError> errors = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    public static class ItemError {
+        // Zero-based position of the row in the submitted batch
+        private int index;
+        private String message;
+    }
+}
@@ -0,0 +1,13 @@
+package com.sb.main.server.dto;
+
+import com.sb.main.server.entity.Genre;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class GenreFacet {
+    private Genre genre;
+    private String label;
+    private int count;
+}
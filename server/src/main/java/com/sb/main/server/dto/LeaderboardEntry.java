@@ -0,0 +1,11 @@
+package com.sb.main.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class LeaderboardEntry {
+    private String title;
+    private long count;
+}
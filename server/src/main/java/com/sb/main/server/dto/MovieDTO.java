@@ -1,10 +1,15 @@
 package com.sb.main.server.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.sb.main.server.entity.Genre;
 import com.sb.main.server.entity.Movie;
+import com.sb.main.server.entity.PosterStatus;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -14,7 +19,22 @@ public class MovieDTO {
     private String description;
     private String link;
     private String genre;
+    @JsonIgnore
+    private long genreMask;
     private String posterUrl;
+    private String posterThumbUrl;
+    private String posterMediumUrl;
+    private PosterStatus posterStatus;
+    private Long version;
+
+    // Serialized by name instead of as the mask. Imports still derive the genres from the genre text.
+    public List<Genre> getGenres() {
+        return Genre.fromMask(genreMask);
+    }
+
+    public void setGenres(List<Genre> genres) {
+        genreMask = genres == null ? 0L : genres.stream().mapToLong(Genre::mask).reduce(0L, (a, b) -> a | b);
+    }
 
     public static MovieDTO from(Movie movie) {
         return new MovieDTO(
@@ -23,7 +43,12 @@ public class MovieDTO {
                 movie.getDescription(),
                 movie.getLink(),
                 movie.getGenre(),
-                movie.getPosterUrl()
+                movie.getGenreMask(),
+                movie.getPosterUrl(),
+                movie.getPosterThumbUrl(),
+                movie.getPosterMediumUrl(),
+                movie.getPosterStatus(),
+                movie.getVersion()
         );
     }
 }
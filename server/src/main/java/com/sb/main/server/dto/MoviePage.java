@@ -0,0 +1,14 @@
+package com.sb.main.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class MoviePage {
+    private List<MovieDTO> items;
+    // Opaque cursor for the following page, null on the last page
+    private String next;
+}
@@ -0,0 +1,12 @@
+package com.sb.main.server.dto;
+
+/**
+ * The columns the search index needs, read without hydrating Movie entities.
+ */
+public interface MovieSearchRow {
+    Long getId();
+    Long getUserId();
+    String getName();
+    String getDescription();
+    String getGenre();
+}
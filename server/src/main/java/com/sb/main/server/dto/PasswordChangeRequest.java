@@ -0,0 +1,9 @@
+package com.sb.main.server.dto;
+
+import lombok.Data;
+
+@Data
+public class PasswordChangeRequest {
+    private String currentPassword;
+    private String newPassword;
+}
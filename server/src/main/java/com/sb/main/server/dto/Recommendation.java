@@ -0,0 +1,15 @@
+package com.sb.main.server.dto;
+
+import com.sb.main.server.entity.Genre;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class Recommendation {
+    private String title;
+    private List<Genre> genres;
+    private double score;
+}
@@ -0,0 +1,8 @@
+package com.sb.main.server.dto;
+
+import lombok.Data;
+
+@Data
+public class RefreshRequest {
+    private String refreshToken;
+}
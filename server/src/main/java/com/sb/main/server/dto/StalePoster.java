@@ -0,0 +1,9 @@
+package com.sb.main.server.dto;
+
+/**
+ * A movie whose poster upload was lost, and who to tell about it.
+ */
+public interface StalePoster {
+    Long getId();
+    String getOwnerEmail();
+}
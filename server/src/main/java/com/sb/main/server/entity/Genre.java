@@ -0,0 +1,130 @@
+package com.sb.main.server.entity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The fixed set of genres a movie can be tagged with. A movie's genres are stored as a bitmask
+ * in movies.genre_mask and counted per user in genre_counts, both keyed by {@link #bit()}:
+ * bits are persisted, so a genre keeps its bit forever and new ones take the next free bit.
+ * <p>
+ * The free-text genre a user enters is kept for display; {@link #maskOf(String)} reads the
+ * genres out of it, e.g. "Sci-Fi, Drama" or "Action / Comedy".
+ */
+public enum Genre {
+    ACTION(0, "Action"),
+    ADVENTURE(1, "Adventure"),
+    ANIMATION(2, "Animation", "animated", "anime", "cartoon"),
+    COMEDY(3, "Comedy", "comedies"),
+    CRIME(4, "Crime", "heist", "noir"),
+    DOCUMENTARY(5, "Documentary", "docu", "documentaries"),
+    DRAMA(6, "Drama", "dramas"),
+    FAMILY(7, "Family", "kids", "children"),
+    FANTASY(8, "Fantasy"),
+    HISTORY(9, "History", "historical", "period"),
+    HORROR(10, "Horror", "slasher"),
+    MUSIC(11, "Music", "concert"),
+    MYSTERY(12, "Mystery", "whodunit"),
+    ROMANCE(13, "Romance", "romantic"),
+    SCIENCE_FICTION(14, "Science Fiction", "sci fi", "scifi", "sf"),
+    THRILLER(15, "Thriller", "suspense"),
+    WAR(16, "War"),
+    WESTERN(17, "Western"),
+    TV_MOVIE(18, "TV Movie"),
+    BIOGRAPHY(19, "Biography", "biopic", "biographical"),
+    MUSICAL(20, "Musical"),
+    SPORT(21, "Sport", "sports");
+
+    private static final Genre[] BY_BIT = new Genre[Long.SIZE];
+    private static final Map<String, Genre> BY_NAME = new HashMap<>();
+
+    static {
+        for (Genre genre : values()) {
+            BY_BIT[genre.bit] = genre;
+            BY_NAME.put(normalize(genre.name()), genre);
+            BY_NAME.put(normalize(genre.label), genre);
+            for (String alias : genre.aliases) {
+                BY_NAME.put(normalize(alias), genre);
+            }
+        }
+    }
+
+    private final int bit;
+    private final String label;
+    private final String[] aliases;
+
+    Genre(int bit, String label, String... aliases) {
+        this.bit = bit;
+        this.label = label;
+        this.aliases = aliases;
+    }
+
+    public int bit() {
+        return bit;
+    }
+
+    public long mask() {
+        return 1L << bit;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    /**
+     * The genre with this bit, or null for a bit no genre uses (any more).
+     */
+    public static Genre fromBit(int bit) {
+        return bit >= 0 && bit < BY_BIT.length ? BY_BIT[bit] : null;
+    }
+
+    /**
+     * The genre called name, matching its constant, label or an alias case-insensitively, or null.
+     */
+    public static Genre find(String name) {
+        return name == null ? null : BY_NAME.get(normalize(name));
+    }
+
+    /**
+     * The genres named in free text, separated by commas, slashes, pipes, ampersands or "and".
+     * A part that names no genre is tried word by word ("Action Comedy"); what still matches
+     * nothing is left out of the mask.
+     */
+    public static long maskOf(String text) {
+        if (text == null || text.isBlank()) {
+            return 0L;
+        }
+        long mask = 0L;
+        for (String part : text.split("(?i)[,/|&;+]|\\band\\b")) {
+            Genre genre = find(part);
+            if (genre != null) {
+                mask |= genre.mask();
+            } else {
+                for (String word : part.trim().split("\\s+")) {
+                    Genre single = find(word);
+                    mask |= single == null ? 0L : single.mask();
+                }
+            }
+        }
+        return mask;
+    }
+
+    public static List<Genre> fromMask(long mask) {
+        List<Genre> genres = new ArrayList<>(Long.bitCount(mask));
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            Genre genre = fromBit(Long.numberOfTrailingZeros(rest));
+            if (genre != null) {
+                genres.add(genre);
+            }
+        }
+        return genres;
+    }
+
+    // "Sci-Fi", "sci_fi" and " SCI FI " all become "sci fi"
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT).replaceAll("[\\s_-]+", " ");
+    }
+}
@@ -3,23 +3,56 @@ package com.sb.main.server.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "movies")
+@Table(name = "movies", indexes = {
+        @Index(name = "idx_movies_user_genre", columnList = "user_id, genre_key"),
+        @Index(name = "idx_movies_user_id", columnList = "user_id, id"),
+        @Index(name = "idx_movies_poster_pending", columnList = "poster_status, poster_pending_since")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Movie {
 
+    // Pooled sequence (a table on MySQL) instead of IDENTITY, which would stop Hibernate from batching inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movies_seq")
+    @SequenceGenerator(name = "movies_seq", sequenceName = "movies_seq", allocationSize = 50)
     private Long id;
 
     private String name;
     private String description;
     private String link;
     private String genre;
+
+    // lower(genre), generated by the database for the (user_id, genre_key) index
+    @Column(insertable = false, updatable = false)
+    private String genreKey;
+
+    // The Genre bits read out of genre, set on every write along with genre_counts
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long genreMask;
+
     private String posterUrl;
+    private String posterThumbUrl;
+    private String posterMediumUrl;
+
+    // Posters are uploaded in the background, the row is saved as PENDING first
+    @Enumerated(EnumType.STRING)
+    @ColumnDefault("'NONE'")
+    private PosterStatus posterStatus = PosterStatus.NONE;
+
+    // When the upload was queued, epoch millis; see PosterUploadService#failStaleUploads
+    private Long posterPendingSince;
+
+    // Bumped on every update, the basis of the single-movie ETag
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
@@ -0,0 +1,8 @@
+package com.sb.main.server.entity;
+
+public enum PosterStatus {
+    NONE,
+    PENDING,
+    READY,
+    FAILED
+}
@@ -0,0 +1,35 @@
+package com.sb.main.server.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One sign-out: either a single session, or every token of the user below a generation.
+ * Times are epoch millis.
+ */
+@Entity
+@Table(name = "token_revocations", indexes = @Index(name = "idx_token_revocations_created_at", columnList = "created_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenRevocation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(length = 64)
+    private String sessionId;
+
+    private Long generation;
+
+    @Column(nullable = false)
+    private long createdAt;
+
+    @Column(nullable = false)
+    private long expiresAt;
+}
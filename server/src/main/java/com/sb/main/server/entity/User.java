@@ -1,5 +1,6 @@
 package com.sb.main.server.entity;
 
+import com.sb.main.server.config.UserChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -7,7 +8,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = @UniqueConstraint(name = "uk_users_email", columnNames = "email"))
+@EntityListeners(UserChangeListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,6 +22,14 @@ public class User {
     private String email;
     private String password;
 
+    // Tokens issued under an older generation are revoked, see TokenRevocationService
+    @Column(nullable = false)
+    private long tokenGeneration;
+
+    // Only ever changed by UserRepository.bumpWatchlistVersion, never written back from a loaded entity
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long watchlistVersion;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
     private List<Movie> watchlist = new ArrayList<>();
 }
\ No newline at end of file
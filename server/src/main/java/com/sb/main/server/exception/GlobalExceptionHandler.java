@@ -2,15 +2,22 @@ package com.sb.main.server.exception;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.sb.main.server.dto.ApiResponse;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
 
 import java.io.IOException;
 import java.util.NoSuchElementException;
 
+@Slf4j
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
@@ -19,6 +26,11 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(new ApiResponse<>(false, "Access denied", null), HttpStatus.FORBIDDEN);
     }
 
+    @ExceptionHandler(JwtException.class)
+    public ResponseEntity<ApiResponse<String>> handleInvalidToken(JwtException ex) {
+        return new ResponseEntity<>(new ApiResponse<>(false, "Invalid or expired token", null), HttpStatus.UNAUTHORIZED);
+    }
+
     @ExceptionHandler(NoSuchElementException.class)
     public ResponseEntity<ApiResponse<String>> handleNotFound(NoSuchElementException ex) {
         return new ResponseEntity<>(new ApiResponse<>(false, "Resource not found", null), HttpStatus.NOT_FOUND);
@@ -29,6 +41,30 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(new ApiResponse<>(false, "Failed to upload image", null), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    @ExceptionHandler(RestClientResponseException.class)
+    public ResponseEntity<ApiResponse<String>> handleUpstreamError(RestClientResponseException ex) {
+        // Upstream 4xx (e.g. unknown TMDB id) passes through, anything else is a bad gateway
+        HttpStatusCode status = ex.getStatusCode().is4xxClientError() ? ex.getStatusCode() : HttpStatus.BAD_GATEWAY;
+        return new ResponseEntity<>(new ApiResponse<>(false, "Upstream request failed", null), status);
+    }
+
+    @ExceptionHandler(RestClientException.class)
+    public ResponseEntity<ApiResponse<String>> handleUpstreamUnavailable(RestClientException ex) {
+        return new ResponseEntity<>(new ApiResponse<>(false, "Upstream service unavailable", null), HttpStatus.BAD_GATEWAY);
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ApiResponse<String>> handleOverloaded(ServiceOverloadedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .body(new ApiResponse<>(false, ex.getMessage(), null));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ApiResponse<String>> handleBadArgument(IllegalArgumentException ex) {
+        return new ResponseEntity<>(new ApiResponse<>(false, ex.getMessage(), null), HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(JsonProcessingException.class)
     public ResponseEntity<ApiResponse<String>> handleJsonError(JsonProcessingException ex) {
         return new ResponseEntity<>(new ApiResponse<>(false, "Invalid request format", null), HttpStatus.BAD_REQUEST);
@@ -36,7 +72,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiResponse<String>> handleGeneric(Exception ex) {
-        ex.printStackTrace(); // Optional: for debugging
+        log.error("Unhandled exception", ex);
         return new ResponseEntity<>(new ApiResponse<>(false, "Something went wrong", null), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 }
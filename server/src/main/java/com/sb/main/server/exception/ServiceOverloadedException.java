@@ -0,0 +1,18 @@
+package com.sb.main.server.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a bounded resource turned the work away instead of queueing it further.
+ * Answered with 503 and a Retry-After header.
+ */
+@Getter
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -1,14 +1,114 @@
 package com.sb.main.server.repository;
 
+import com.sb.main.server.dto.MovieDTO;
+import com.sb.main.server.dto.MovieSearchRow;
+import com.sb.main.server.dto.StalePoster;
 import com.sb.main.server.entity.Movie;
+import com.sb.main.server.entity.PosterStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface MovieRepository extends JpaRepository<Movie, Long> {
-    List<Movie> findByUserId(Long userId);
-    List<Movie> findByUserIdAndNameContainingIgnoreCase(Long userId, String name);
-    List<Movie> findByUserIdAndGenreIgnoreCase(Long userId, String genre);
-    List<Movie> findByUserIdAndNameContainingIgnoreCaseAndGenreIgnoreCase(Long userId, String name, String genre);
 
-}
\ No newline at end of file
+    // Read queries project straight into MovieDTO, so no entity, dirty-check snapshot or User proxy is created.
+    // Ownership is resolved inside the same statement by comparing user ids.
+    String SELECT_DTO = "select new com.sb.main.server.dto.MovieDTO(m.id, m.name, m.description, m.link, m.genre, m.genreMask, m.posterUrl, m.posterThumbUrl, m.posterMediumUrl, m.posterStatus, m.version) from Movie m ";
+    String OWNED_BY = "m.user.id = (select u.id from User u where u.email = :email)";
+    // Case-insensitive substring of the name parameter in which %, _ and \ match themselves, as in the derived
+    // Containing queries. Escaped with '!', not a backslash: MySQL and H2 read a backslash in SQL differently.
+    String NAME_CONTAINS = "lower(m.name) like lower(concat('%', :#{#name.replace('!', '!!').replace('%', '!%').replace('_', '!_')}, '%')) escape '!'";
+    // Pending since before the cutoff, or since before the time was recorded
+    String STALE_POSTER = "m.posterStatus = com.sb.main.server.entity.PosterStatus.PENDING "
+            + "and (m.posterPendingSince is null or m.posterPendingSince < :cutoff)";
+
+    @Query(SELECT_DTO + "where " + OWNED_BY)
+    List<MovieDTO> findByUserEmail(String email);
+
+    @Query(SELECT_DTO + "where m.user.id = :userId order by m.id")
+    List<MovieDTO> findByUserId(Long userId);
+
+    @Query(SELECT_DTO + "where " + OWNED_BY + " and " + NAME_CONTAINS)
+    List<MovieDTO> findByUserEmailAndNameContainingIgnoreCase(String email, String name);
+
+    @Query(SELECT_DTO + "where " + OWNED_BY + " and " + NAME_CONTAINS + " order by m.id")
+    List<MovieDTO> findByUserEmailAndNameContainingIgnoreCase(String email, String name, Limit limit);
+
+    @Query(SELECT_DTO + "where " + OWNED_BY + " and m.genreKey = lower(:genre)")
+    List<MovieDTO> findByUserEmailAndGenreIgnoreCase(String email, String genre);
+
+    @Query(SELECT_DTO + "where " + OWNED_BY + " and " + NAME_CONTAINS + " and m.genreKey = lower(:genre)")
+    List<MovieDTO> findByUserEmailAndNameContainingIgnoreCaseAndGenreIgnoreCase(String email, String name, String genre);
+
+    // genreMask has no index: these scan the user's rows through idx_movies_user_id and test the bits
+    @Query(SELECT_DTO + "where " + OWNED_BY + " and bitand(m.genreMask, :mask) = :mask")
+    List<MovieDTO> findByUserEmailAndAllGenres(String email, long mask);
+
+    @Query(SELECT_DTO + "where " + OWNED_BY + " and bitand(m.genreMask, :mask) <> 0")
+    List<MovieDTO> findByUserEmailAndAnyGenre(String email, long mask);
+
+    @Query(SELECT_DTO + "where m.id in :ids and " + OWNED_BY)
+    List<MovieDTO> findByIdInAndUserEmail(Collection<Long> ids, String email);
+
+    @Query(SELECT_DTO + "where m.id = :id and " + OWNED_BY)
+    Optional<MovieDTO> findDtoByIdAndUserEmail(Long id, String email);
+
+    @Query("select m from Movie m where m.id = :id and " + OWNED_BY)
+    Optional<Movie> findByIdAndUserEmail(Long id, String email);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(SELECT_DTO + "where m.id = :id and " + OWNED_BY)
+    Optional<MovieDTO> findDtoByIdAndUserEmailForUpdate(Long id, String email);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Movie m where m.id = :id and " + OWNED_BY)
+    int deleteByIdAndUserEmail(Long id, String email);
+
+    // Targeted update so a finished background upload never overwrites concurrent edits to the movie
+    @Transactional
+    @Modifying
+    @Query("update versioned Movie m set m.posterUrl = :posterUrl, m.posterThumbUrl = :posterThumbUrl, m.posterMediumUrl = :posterMediumUrl, "
+            + "m.posterStatus = :posterStatus where m.id = :id")
+    int updatePoster(Long id, String posterUrl, String posterThumbUrl, String posterMediumUrl, PosterStatus posterStatus);
+
+    @Transactional
+    @Modifying
+    @Query("update versioned Movie m set m.posterStatus = :posterStatus where m.id = :id")
+    int updatePosterStatus(Long id, PosterStatus posterStatus);
+
+    @Query("select m.id as id, m.user.email as ownerEmail from Movie m where " + STALE_POSTER)
+    List<StalePoster> findStalePosters(long cutoff);
+
+    // Only while still stale: an upload that finished in the meantime wins
+    @Transactional
+    @Modifying
+    @Query("update versioned Movie m set m.posterStatus = com.sb.main.server.entity.PosterStatus.FAILED where m.id = :id and " + STALE_POSTER)
+    int failStalePoster(Long id, long cutoff);
+
+    // Keyset page on (user_id, id): seeks past the last seen id instead of counting an OFFSET
+    @Query(SELECT_DTO + "where " + OWNED_BY + " and m.id > :afterId order by m.id")
+    List<MovieDTO> findPageByUserEmail(String email, Long afterId, Limit limit);
+
+    // MIN_VALUE makes MySQL Connector/J stream rows one by one instead of buffering the result set
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query(SELECT_DTO + "where " + OWNED_BY + " order by m.id")
+    Stream<MovieDTO> streamByUserEmail(String email);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("select m.id as id, m.user.id as userId, m.name as name, m.description as description, m.genre as genre from Movie m")
+    Stream<MovieSearchRow> streamSearchRows();
+}
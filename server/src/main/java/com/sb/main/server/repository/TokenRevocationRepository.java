@@ -0,0 +1,20 @@
+package com.sb.main.server.repository;
+
+import com.sb.main.server.entity.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+    // Read-write on purpose, so it stays on the primary: a lagging replica could hide a sign-out from the poll
+    @Transactional
+    List<TokenRevocation> findByCreatedAtGreaterThanEqualAndExpiresAtGreaterThan(long createdAt, long now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from TokenRevocation r where r.expiresAt <= :now")
+    int deleteExpired(long now);
+}
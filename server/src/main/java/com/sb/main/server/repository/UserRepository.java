@@ -2,10 +2,48 @@ package com.sb.main.server.repository;
 
 import com.sb.main.server.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    // Declared queries get no transaction of their own, and only read-only ones go to a replica. This one is
+    // read-write on purpose, so it stays on the primary: sign-in right after sign-up must find the user.
+    @Transactional
     Optional<User> findByEmail(String email);
+
+    @Query("select u.id from User u where u.email = :email")
+    Optional<Long> findIdByEmail(String email);
+
+    // Bulk updates on purpose: neither goes through UserChangeListener. A rehash is not a user change and must not
+    // drop cached tokens; a password change revokes the sessions itself.
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.id = :id")
+    int updatePassword(Long id, String password);
+
+    // Only while the hash is still the one verified at sign-in, so a rehash finishing late cannot undo a password change
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.id = :id and u.password = :oldHash")
+    int rehashPassword(Long id, String oldHash, String password);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.tokenGeneration = u.tokenGeneration + 1 where u.id = :id")
+    int bumpTokenGeneration(Long id);
+
+    @Query("select u.tokenGeneration from User u where u.id = :id")
+    Optional<Long> findTokenGenerationById(Long id);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.watchlistVersion = u.watchlistVersion + 1 where u.email = :email")
+    int bumpWatchlistVersion(String email);
+
+    @Query("select u.watchlistVersion from User u where u.email = :email")
+    Optional<Long> findWatchlistVersionByEmail(String email);
 }
 
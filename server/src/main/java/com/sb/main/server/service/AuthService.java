@@ -1,44 +1,120 @@
 package com.sb.main.server.service;
 
 import com.sb.main.server.config.JwtUtils;
+import com.sb.main.server.config.PrimaryStickiness;
 import com.sb.main.server.dto.AuthRequest;
 import com.sb.main.server.dto.AuthResponse;
+import com.sb.main.server.dto.PasswordChangeRequest;
 import com.sb.main.server.dto.RegisterRequest;
 import com.sb.main.server.entity.User;
 import com.sb.main.server.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.observation.annotation.Observed;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.util.UUID;
+
 @Service
+@Observed(name = "auth.service")
 @RequiredArgsConstructor
 public class AuthService {
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtUtils jwtUtils;
+    private final PrimaryStickiness primaryStickiness;
+    private final TokenRevocationService revocationService;
 
     public void register(RegisterRequest request) {
-        if (userRepository.findByEmail(request.getEmail()).isPresent()) {
-            throw new RuntimeException("Email already in use");
-        }
-
         User user = new User();
         user.setUsername(request.getUsername());
         user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-        userRepository.save(user);
+        user.setPassword(passwordHasher.encode(request.getPassword()));
+        try {
+            // The unique index on email decides, no lookup beforehand
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Email already in use");
+        }
+        // The first requests with the new token resolve the user id on a read-only path
+        primaryStickiness.wrote();
     }
 
     public AuthResponse login(AuthRequest request) {
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHasher.matches(request.getPassword(), user.getPassword())) {
             throw new RuntimeException("Invalid credentials");
         }
+        if (passwordHasher.needsRehash(user.getPassword())) {
+            Long userId = user.getId();
+            String verifiedHash = user.getPassword();
+            passwordHasher.encodeLater(request.getPassword(), hash -> userRepository.rehashPassword(userId, verifiedHash, hash));
+        }
 
-        String token = jwtUtils.generateToken(user);
-        return new AuthResponse(token);
+        return issueTokens(user, user.getTokenGeneration());
+    }
+
+    /**
+     * A new access token for the refresh token's session. The refresh token itself is kept, so
+     * refreshing writes nothing; it stops working when its session or generation is revoked.
+     */
+    public AuthResponse refresh(String refreshToken) {
+        JwtUtils.Session session = JwtUtils.session(jwtUtils.parseClaims(refreshToken), JwtUtils.REFRESH);
+        if (session == null || revocationService.isRevoked(session.userId(), session.generation(), session.sessionId())) {
+            throw new JwtException("Refresh token is not valid");
+        }
+        return new AuthResponse(jwtUtils.generateAccessToken(session), refreshToken, jwtUtils.getAccessTokenTtl().toSeconds());
+    }
+
+    /**
+     * Signs out the session of the given access or refresh token, even an expired one.
+     */
+    public void logout(String token) {
+        Claims claims;
+        try {
+            claims = jwtUtils.parseClaims(token);
+        } catch (ExpiredJwtException e) {
+            // The signature was verified before the expiry
+            claims = e.getClaims();
+        }
+        JwtUtils.Session session = JwtUtils.session(claims, JwtUtils.ACCESS);
+        if (session == null) {
+            session = JwtUtils.session(claims, JwtUtils.REFRESH);
+        }
+        if (session == null) {
+            throw new JwtException("Token has no session");
+        }
+        revocationService.revokeSession(session.userId(), session.sessionId());
+    }
+
+    public void logoutEverywhere(String email) {
+        Long userId = userRepository.findIdByEmail(email).orElseThrow();
+        revocationService.revokeAll(userId);
     }
-}
 
+    /**
+     * Changes the password and signs out every session, returning fresh tokens for the caller.
+     */
+    public AuthResponse changePassword(String email, PasswordChangeRequest request) {
+        User user = userRepository.findByEmail(email).orElseThrow();
+        if (!passwordHasher.matches(request.getCurrentPassword(), user.getPassword())) {
+            throw new IllegalArgumentException("Current password is incorrect");
+        }
+        if (request.getNewPassword() == null || request.getNewPassword().isBlank()) {
+            throw new IllegalArgumentException("New password must not be blank");
+        }
+        userRepository.updatePassword(user.getId(), passwordHasher.encode(request.getNewPassword()));
+        return issueTokens(user, revocationService.revokeAll(user.getId()));
+    }
+
+    private AuthResponse issueTokens(User user, long generation) {
+        JwtUtils.Session session = new JwtUtils.Session(user.getEmail(), user.getId(), generation, UUID.randomUUID().toString());
+        return new AuthResponse(jwtUtils.generateAccessToken(session), jwtUtils.generateRefreshToken(session),
+                jwtUtils.getAccessTokenTtl().toSeconds());
+    }
+}
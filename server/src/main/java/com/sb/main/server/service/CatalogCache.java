@@ -0,0 +1,155 @@
+package com.sb.main.server.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded cache of upstream catalog responses. Concurrent misses for one key share a
+ * single upstream fetch, and an entry past its TTL is still served for a grace period
+ * while one background refresh replaces it (stale-while-revalidate).
+ */
+@Component
+public class CatalogCache {
+
+    @Value("${catalog.cache.max-entries:5000}")
+    private int maxEntries;
+
+    @Value("${catalog.cache.stale-while-revalidate:PT1H}")
+    private Duration staleWhileRevalidate;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Entry>> inflight = new ConcurrentHashMap<>();
+    private ExecutorService refresher;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder upstreamFetches = new LongAdder();
+
+    private record Entry(byte[] body, long expiresAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        ThreadFactory threads = virtualThreads
+                ? Thread.ofVirtual().name("catalog-refresh-", 0).factory()
+                : Thread.ofPlatform().name("catalog-refresh-", 0).daemon().factory();
+        refresher = Executors.newFixedThreadPool(2, threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    public byte[] get(String key, Duration ttl, Supplier<byte[]> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+        if (entry != null && now < entry.expiresAt()) {
+            hits.increment();
+            return entry.body();
+        }
+        if (entry != null && now < entry.expiresAt() + staleWhileRevalidate.toMillis()) {
+            staleHits.increment();
+            if (!inflight.containsKey(key)) {
+                // A failed refresh keeps the stale copy until the grace period ends
+                refresher.execute(() -> load(key, ttl, loader));
+            }
+            return entry.body();
+        }
+
+        misses.increment();
+        try {
+            return load(key, ttl, loader).join().body();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long staleHits() {
+        return staleHits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long upstreamFetches() {
+        return upstreamFetches.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private CompletableFuture<Entry> load(String key, Duration ttl, Supplier<byte[]> loader) {
+        CompletableFuture<Entry> created = new CompletableFuture<>();
+        CompletableFuture<Entry> running = inflight.putIfAbsent(key, created);
+        if (running != null) {
+            return running;
+        }
+
+        try {
+            upstreamFetches.increment();
+            Entry entry = new Entry(loader.get(), System.currentTimeMillis() + ttl.toMillis());
+            put(key, entry);
+            created.complete(entry);
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+        } finally {
+            inflight.remove(key, created);
+        }
+        return created;
+    }
+
+    private void put(String key, Entry entry) {
+        if (entries.size() >= maxEntries) {
+            makeRoom();
+        }
+        entries.put(key, entry);
+    }
+
+    private void makeRoom() {
+        long cutoff = System.currentTimeMillis() - staleWhileRevalidate.toMillis();
+        entries.values().removeIf(entry -> entry.expiresAt() < cutoff);
+        if (entries.size() < maxEntries) {
+            return;
+        }
+
+        // Still full of servable entries: drop an arbitrary tenth, they are refetched on demand
+        int toEvict = entries.size() - maxEntries + Math.max(1, maxEntries / 10);
+        Iterator<String> it = entries.keySet().iterator();
+        while (toEvict-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
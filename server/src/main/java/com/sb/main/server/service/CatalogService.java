@@ -0,0 +1,105 @@
+package com.sb.main.server.service;
+
+import jakarta.annotation.PostConstruct;
+import io.micrometer.observation.annotation.Observed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Server-side proxy for the TMDB calls the client makes. Only the listed paths and query
+ * parameters are forwarded, each with its own cache lifetime.
+ */
+@Service
+@Observed(name = "catalog.service")
+@RequiredArgsConstructor
+public class CatalogService {
+
+    private static final Set<String> COMMON_PARAMS = Set.of("page", "language");
+
+    @Lazy
+    private final TmdbClient tmdbClient;
+    private final CatalogCache catalogCache;
+    private final CatalogSnapshotService catalogSnapshotService;
+
+    @Value("${catalog.ttl.trending:PT10M}")
+    private Duration trendingTtl;
+
+    @Value("${catalog.ttl.lists:PT30M}")
+    private Duration listsTtl;
+
+    @Value("${catalog.ttl.reference:PT24H}")
+    private Duration referenceTtl;
+
+    @Value("${catalog.ttl.details:PT6H}")
+    private Duration detailsTtl;
+
+    @Value("${catalog.ttl.search:PT5M}")
+    private Duration searchTtl;
+
+    private List<Route> routes;
+
+    public record Route(Pattern path, Duration ttl, Set<String> params) {
+    }
+
+    /**
+     * gzipBody is only set for prefetched snapshots, which are stored compressed already.
+     */
+    public record CatalogResponse(byte[] body, byte[] gzipBody, Duration ttl) {
+    }
+
+    static String cacheKey(String path, Map<String, String> sortedParams) {
+        return sortedParams.isEmpty() ? path : path + "?" + sortedParams;
+    }
+
+    @PostConstruct
+    public void init() {
+        routes = List.of(
+                new Route(Pattern.compile("/trending/(movie|tv|all)/(day|week)"), trendingTtl, Set.of()),
+                new Route(Pattern.compile("/(movie|tv)/(popular|top_rated|now_playing|upcoming|on_the_air)"), listsTtl, Set.of()),
+                new Route(Pattern.compile("/discover/(movie|tv)"), listsTtl, Set.of("with_genres", "with_original_language", "sort_by")),
+                new Route(Pattern.compile("/genre/(movie|tv)/list"), referenceTtl, Set.of()),
+                new Route(Pattern.compile("/configuration/languages"), referenceTtl, Set.of()),
+                new Route(Pattern.compile("/search/(movie|tv|multi)"), searchTtl, Set.of("query")),
+                new Route(Pattern.compile("/(movie|tv)/\\d+(/credits|/videos)?"), detailsTtl, Set.of())
+        );
+    }
+
+    public CatalogResponse fetch(String path, Map<String, String[]> query) {
+        Route route = routes.stream()
+                .filter(candidate -> candidate.path().matcher(path).matches())
+                .findFirst()
+                .orElseThrow(NoSuchElementException::new);
+
+        // Sorted, allow-listed parameters: equal requests share one cache key
+        Map<String, String> params = new TreeMap<>();
+        query.forEach((name, values) -> {
+            if (values.length > 0 && (COMMON_PARAMS.contains(name) || route.params().contains(name))) {
+                params.put(name, values[0]);
+            }
+        });
+
+        String key = cacheKey(path, params);
+        CatalogSnapshotService.Snapshot snapshot = catalogSnapshotService.find(key);
+        if (snapshot != null) {
+            return new CatalogResponse(snapshot.json(), snapshot.gzip(), route.ttl());
+        }
+
+        MultiValueMap<String, String> upstreamParams = new LinkedMultiValueMap<>();
+        params.forEach(upstreamParams::add);
+
+        byte[] body = catalogCache.get(key, route.ttl(), () -> tmdbClient.get(path, upstreamParams));
+        return new CatalogResponse(body, null, route.ttl());
+    }
+}
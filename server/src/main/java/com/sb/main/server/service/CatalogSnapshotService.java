@@ -0,0 +1,142 @@
+package com.sb.main.server.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the lists behind the Home and browse pages (trending, popular, genre and language
+ * lists for movies and tv) prefetched in memory as ready-to-send JSON and gzip bytes.
+ * Each refresh builds a complete new set and swaps it in at once; a list that fails to
+ * refresh keeps its previous snapshot.
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogSnapshotService {
+
+    private static final List<String> MEDIA_TYPES = List.of("movie", "tv");
+    // The language filters offered by MediaBrowser: English, Hindi, Telugu
+    private static final List<String> LANGUAGES = List.of("en", "hi", "te");
+
+    @Lazy
+    private final TmdbClient tmdbClient;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${catalog.snapshot.enabled:true}")
+    private boolean enabled;
+
+    private final AtomicReference<Map<String, Snapshot>> snapshots = new AtomicReference<>(Map.of());
+    private volatile long lastRefreshed;
+    private Timer refreshTimer;
+    private Counter failures;
+
+    public record Snapshot(byte[] json, byte[] gzip) {
+    }
+
+    @PostConstruct
+    public void init() {
+        refreshTimer = Timer.builder("catalog.snapshot.refresh").description("Time to refresh all catalog snapshots").register(meterRegistry);
+        failures = Counter.builder("catalog.snapshot.failures").description("Catalog lists that failed to refresh").register(meterRegistry);
+        Gauge.builder("catalog.snapshot.age", this, service -> service.lastRefreshed == 0 ? Double.NaN : (System.currentTimeMillis() - service.lastRefreshed) / 1000.0)
+                .description("Seconds since the last complete refresh")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("catalog.snapshot.count", snapshots, current -> current.get().size()).register(meterRegistry);
+    }
+
+    /**
+     * Snapshot for a catalog cache key, or null if that list is not prefetched.
+     */
+    public Snapshot find(String key) {
+        return snapshots.get().get(key);
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.snapshot.refresh-interval:PT10M}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        refreshTimer.record(() -> {
+            Map<String, Snapshot> previous = snapshots.get();
+            Map<String, Snapshot> next = new HashMap<>(previous);
+            int failed = 0;
+
+            for (String mediaType : MEDIA_TYPES) {
+                failed += fetchInto(next, "/trending/" + mediaType + "/week", Map.of());
+                failed += fetchInto(next, "/" + mediaType + "/popular", Map.of());
+                failed += fetchInto(next, "/genre/" + mediaType + "/list", Map.of());
+                for (String language : LANGUAGES) {
+                    failed += fetchInto(next, "/discover/" + mediaType, Map.of("with_original_language", language));
+                }
+                Snapshot genres = next.get(CatalogService.cacheKey("/genre/" + mediaType + "/list", Map.of()));
+                for (String genreId : genreIds(genres)) {
+                    failed += fetchInto(next, "/discover/" + mediaType, Map.of("with_genres", genreId));
+                }
+            }
+            failed += fetchInto(next, "/configuration/languages", Map.of());
+
+            snapshots.set(Map.copyOf(next));
+            if (failed == 0) {
+                lastRefreshed = System.currentTimeMillis();
+            }
+        });
+    }
+
+    private int fetchInto(Map<String, Snapshot> target, String path, Map<String, String> params) {
+        Map<String, String> sorted = new TreeMap<>(params);
+        MultiValueMap<String, String> upstreamParams = new LinkedMultiValueMap<>();
+        sorted.forEach(upstreamParams::add);
+        try {
+            byte[] json = tmdbClient.get(path, upstreamParams);
+            target.put(CatalogService.cacheKey(path, sorted), new Snapshot(json, gzip(json)));
+            return 0;
+        } catch (RuntimeException e) {
+            failures.increment();
+            return 1;
+        }
+    }
+
+    private List<String> genreIds(Snapshot genres) {
+        if (genres == null) {
+            return List.of();
+        }
+        try {
+            JsonNode list = objectMapper.readTree(genres.json()).path("genres");
+            return list.findValuesAsText("id");
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,746 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.dto.Recommendation;
+import com.sb.main.server.entity.Genre;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * How often titles appear near each other across all watchlists. A title is its normalized name
+ * plus its genre bits, so "The Matrix (1999)" tagged Sci-Fi on one watchlist and "matrix" tagged
+ * Sci-Fi on another are the same title. Two entries co-occur when they are at most window
+ * positions apart on one watchlist, ordered by id (the order they were added in). The window caps
+ * what a long watchlist contributes at 2 * window pairs per entry instead of its length squared.
+ * <p>
+ * Counts live in open-addressing int maps, one per title, and watchlists in primitive arrays, a
+ * few bytes per count with nothing boxed. Titles keep their id once seen, deleting every entry of
+ * one only empties its counts until the next build.
+ * <p>
+ * Reads go through each title's best neighbours by cosine similarity, worked out on first use
+ * and dropped by any write that changes them, so a popular title's thousands of counts are only
+ * ranked again after it changed. Writes are not thread-safe, reads may run concurrently with
+ * each other; RecommendationService guards the model with a read-write lock.
+ */
+public final class CooccurrenceModel {
+
+    private static final int FREE = -1;
+    // Bounds /similar's limit, and what each seed contributes to recommendations
+    private static final int TOP_NEIGHBORS = 100;
+    private static final Pattern YEAR = Pattern.compile("\\s*[(\\[]\\d{4}[)\\]]\\s*$");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern ARTICLE = Pattern.compile("^(the|a|an) ");
+
+    private final int window;
+    private final int minOwners;
+
+    private final Map<String, Integer> itemIds = new HashMap<>();
+    private final Map<String, Integer> titleIds = new HashMap<>();
+    private String[] titles = new String[16];
+    private int[] titleOf = new int[16];
+    private long[] genreMasks = new long[16];
+    // Watchlist entries holding the item, and how many distinct users those belong to
+    private int[] entries = new int[16];
+    private int[] owners = new int[16];
+    private IntIntMap[] neighbors = new IntIntMap[16];
+    // Packed TopK entries, null until read or after a change; set by concurrent readers
+    private AtomicReferenceArray<long[]> topNeighbors = new AtomicReferenceArray<>(16);
+    private int itemCount;
+
+    private final LongIntMap userIndex = new LongIntMap();
+    private Watchlist[] watchlists = new Watchlist[16];
+    private int userCount;
+
+    private CooccurrenceModel(int window, int minOwners) {
+        this.window = window;
+        this.minOwners = minOwners;
+    }
+
+    /**
+     * Collects every watchlist entry, in id order, for a model built in one parallel pass.
+     * Titles held by fewer than minOwners users are never recommended, so an entry only one
+     * user has does not show up for others.
+     */
+    public static Builder builder(int window, int minOwners) {
+        return new Builder(window, minOwners);
+    }
+
+    public int itemCount() {
+        return itemCount;
+    }
+
+    public int userCount() {
+        return userCount;
+    }
+
+    /**
+     * Adds a watchlist entry, or moves it to its new title after an update. Applying the same
+     * entry twice changes nothing.
+     */
+    public void add(long movieId, long userId, String name, long genreMask) {
+        String normalized = normalizeTitle(name);
+        int item = normalized.isEmpty() ? FREE : intern(normalized, name, genreMask);
+        // Not watchlists[denseUser(userId)]: the array is read before denseUser may grow it
+        int user = denseUser(userId);
+        Watchlist list = watchlists[user];
+        int pos = list.indexOf(movieId);
+        if (pos >= 0) {
+            if (list.items[pos] == item) {
+                return;
+            }
+            removeAt(list, pos);
+        } else {
+            pos = -pos - 1;
+        }
+        if (item != FREE) {
+            insertAt(list, pos, movieId, item);
+        }
+    }
+
+    public void remove(long movieId, long userId) {
+        int user = userIndex.get(userId);
+        if (user < 0) {
+            return;
+        }
+        Watchlist list = watchlists[user];
+        int pos = list.indexOf(movieId);
+        if (pos >= 0) {
+            removeAt(list, pos);
+        }
+    }
+
+    /**
+     * Titles that most often appear near this one, by cosine similarity of their co-occurrence.
+     * The same name under other genres is left out.
+     */
+    public List<Recommendation> similar(String name, long genreMask, int limit) {
+        Integer item = itemIds.get(normalizeTitle(name) + '#' + genreMask);
+        if (item == null) {
+            return List.of();
+        }
+        long[] best = topNeighbors(item);
+        return results(Arrays.copyOf(best, Math.min(limit, best.length)));
+    }
+
+    /**
+     * Titles near the user's seedItems most recently added ones, ranked by their summed similarity
+     * to those. Titles already on the watchlist, under any genres, are left out.
+     */
+    public List<Recommendation> recommend(long userId, int limit, int seedItems) {
+        int user = userIndex.get(userId);
+        if (user < 0 || limit <= 0) {
+            return List.of();
+        }
+        Watchlist list = watchlists[user];
+        IntIntMap ownTitles = new IntIntMap(list.size);
+        for (int i = 0; i < list.size; i++) {
+            ownTitles.add(titleOf[list.items[i]], 1);
+        }
+
+        IntIntMap seeds = new IntIntMap(seedItems);
+        // Candidate item to its index + 1 in candidates and scores
+        IntIntMap slots = new IntIntMap(seedItems * 16);
+        int[] candidates = new int[256];
+        float[] scores = new float[256];
+        int count = 0;
+        for (int i = list.size - 1; i >= 0 && seeds.size < seedItems; i--) {
+            int seed = list.items[i];
+            if (seeds.get(seed) != 0) {
+                continue;
+            }
+            seeds.add(seed, 1);
+            for (long entry : topNeighbors(seed)) {
+                int other = TopK.item(entry);
+                if (ownTitles.get(titleOf[other]) != 0) {
+                    continue;
+                }
+                int slot = slots.get(other) - 1;
+                if (slot < 0) {
+                    if (count == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, count * 2);
+                        scores = Arrays.copyOf(scores, count * 2);
+                    }
+                    slot = count++;
+                    candidates[slot] = other;
+                    slots.add(other, slot + 1);
+                }
+                scores[slot] += TopK.score(entry);
+            }
+        }
+
+        TopK top = new TopK(limit);
+        for (int slot = 0; slot < count; slot++) {
+            top.offer(candidates[slot], scores[slot]);
+        }
+        return results(top.sortedDescending());
+    }
+
+    private long[] topNeighbors(int item) {
+        long[] best = topNeighbors.get(item);
+        if (best != null) {
+            return best;
+        }
+        IntIntMap near = neighbors[item];
+        TopK top = new TopK(TOP_NEIGHBORS);
+        for (int slot = 0; near != null && slot < near.keys.length; slot++) {
+            int other = near.keys[slot];
+            if (other != FREE && owners[other] >= minOwners && titleOf[other] != titleOf[item]) {
+                top.offer(other, (float) (near.values[slot] / Math.sqrt((double) entries[item] * entries[other])));
+            }
+        }
+        best = top.sortedDescending();
+        topNeighbors.set(item, best);
+        return best;
+    }
+
+    private List<Recommendation> results(long[] best) {
+        List<Recommendation> results = new ArrayList<>(best.length);
+        for (long entry : best) {
+            int item = TopK.item(entry);
+            double score = Math.round(TopK.score(entry) * 1000) / 1000.0;
+            results.add(new Recommendation(titles[item], Genre.fromMask(genreMasks[item]), score));
+        }
+        return results;
+    }
+
+    private void insertAt(Watchlist list, int pos, long movieId, int item) {
+        if (!list.contains(item)) {
+            owners[item]++;
+        }
+        entries[item]++;
+        list.insert(pos, movieId, item);
+        int last = list.size - 1;
+        // Entries exactly window apart around pos are pushed out of each other's window
+        for (int p = Math.max(0, pos - window); p < pos; p++) {
+            int q = p + window + 1;
+            if (q <= last) {
+                pair(list.items[p], list.items[q], -1);
+            }
+        }
+        for (int q = Math.max(0, pos - window); q <= Math.min(last, pos + window); q++) {
+            if (q != pos) {
+                pair(item, list.items[q], 1);
+            }
+        }
+        entriesChanged(item);
+    }
+
+    // The exact reverse of insertAt
+    private void removeAt(Watchlist list, int pos) {
+        int item = list.items[pos];
+        int last = list.size - 1;
+        for (int q = Math.max(0, pos - window); q <= Math.min(last, pos + window); q++) {
+            if (q != pos) {
+                pair(item, list.items[q], -1);
+            }
+        }
+        for (int p = Math.max(0, pos - window); p < pos; p++) {
+            int q = p + window + 1;
+            if (q <= last) {
+                pair(list.items[p], list.items[q], 1);
+            }
+        }
+        list.removeAt(pos);
+        entries[item]--;
+        if (!list.contains(item)) {
+            owners[item]--;
+        }
+        entriesChanged(item);
+    }
+
+    private void pair(int a, int b, int delta) {
+        if (a != b) {
+            neighborsOf(a).add(b, delta);
+            neighborsOf(b).add(a, delta);
+            topNeighbors.set(a, null);
+            topNeighbors.set(b, null);
+        }
+    }
+
+    // Every similarity to the item depends on its entry and owner counts
+    private void entriesChanged(int item) {
+        topNeighbors.set(item, null);
+        IntIntMap near = neighbors[item];
+        for (int slot = 0; near != null && slot < near.keys.length; slot++) {
+            if (near.keys[slot] != FREE) {
+                topNeighbors.set(near.keys[slot], null);
+            }
+        }
+    }
+
+    private IntIntMap neighborsOf(int item) {
+        IntIntMap near = neighbors[item];
+        if (near == null) {
+            near = neighbors[item] = new IntIntMap(4);
+        }
+        return near;
+    }
+
+    private int intern(String normalized, String name, long genreMask) {
+        String key = normalized + '#' + genreMask;
+        Integer existing = itemIds.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        int item = itemCount++;
+        if (item == titles.length) {
+            int capacity = item * 2;
+            titles = Arrays.copyOf(titles, capacity);
+            titleOf = Arrays.copyOf(titleOf, capacity);
+            genreMasks = Arrays.copyOf(genreMasks, capacity);
+            entries = Arrays.copyOf(entries, capacity);
+            owners = Arrays.copyOf(owners, capacity);
+            neighbors = Arrays.copyOf(neighbors, capacity);
+            AtomicReferenceArray<long[]> grown = new AtomicReferenceArray<>(capacity);
+            for (int i = 0; i < item; i++) {
+                grown.set(i, topNeighbors.get(i));
+            }
+            topNeighbors = grown;
+        }
+        itemIds.put(key, item);
+        Integer title = titleIds.putIfAbsent(normalized, titleIds.size());
+        titleOf[item] = title == null ? titleIds.size() - 1 : title;
+        titles[item] = name.trim();
+        genreMasks[item] = genreMask;
+        return item;
+    }
+
+    private int denseUser(long userId) {
+        int user = userIndex.get(userId);
+        if (user < 0) {
+            user = userCount++;
+            userIndex.put(userId, user);
+            if (user == watchlists.length) {
+                watchlists = Arrays.copyOf(watchlists, user * 2);
+            }
+            watchlists[user] = new Watchlist();
+        }
+        return user;
+    }
+
+    // "The Matrix (1999)", "Matrix" and "the matrix" all become "matrix", "Amélie" becomes "amelie".
+    // Also the title LeaderboardService counts under.
+    static String normalizeTitle(String name) {
+        if (name == null) {
+            return "";
+        }
+        String title = Normalizer.normalize(YEAR.matcher(name).replaceFirst(""), Normalizer.Form.NFKD);
+        title = MARKS.matcher(title).replaceAll("").toLowerCase(Locale.ROOT).replace("&", " and ");
+        title = SEPARATORS.matcher(title).replaceAll(" ").trim();
+        return ARTICLE.matcher(title).replaceFirst("");
+    }
+
+    public static final class Builder {
+        private final int window;
+        private final int minOwners;
+        private long[] movieIds = new long[1024];
+        private long[] userIds = new long[1024];
+        private String[] names = new String[1024];
+        private long[] genreMasks = new long[1024];
+        private int rows;
+
+        private Builder(int window, int minOwners) {
+            this.window = window;
+            this.minOwners = minOwners;
+        }
+
+        public int rows() {
+            return rows;
+        }
+
+        /**
+         * Entries have to be added in ascending id order.
+         */
+        public void add(long movieId, long userId, String name, long genreMask) {
+            if (rows == movieIds.length) {
+                int capacity = rows * 2;
+                movieIds = Arrays.copyOf(movieIds, capacity);
+                userIds = Arrays.copyOf(userIds, capacity);
+                names = Arrays.copyOf(names, capacity);
+                genreMasks = Arrays.copyOf(genreMasks, capacity);
+            }
+            movieIds[rows] = movieId;
+            userIds[rows] = userId;
+            names[rows] = name;
+            genreMasks[rows] = genreMask;
+            rows++;
+        }
+
+        /**
+         * Normalizes titles and counts each title's neighbours on the common fork-join pool.
+         * Only assigning dense ids and grouping entries by user run on the calling thread.
+         */
+        public CooccurrenceModel build() {
+            CooccurrenceModel model = new CooccurrenceModel(window, minOwners);
+            String[] normalized = new String[rows];
+            ForkJoinPool.commonPool().invoke(new RangeTask(0, rows, 1024, r -> normalized[r] = normalizeTitle(names[r])));
+
+            int[] rowItem = new int[rows];
+            int[] rowUser = new int[rows];
+            for (int r = 0; r < rows; r++) {
+                rowItem[r] = normalized[r].isEmpty() ? FREE : model.intern(normalized[r], names[r], genreMasks[r]);
+                rowUser[r] = model.denseUser(userIds[r]);
+            }
+
+            // Counting sort by user; rows arrive in id order, so each watchlist stays in id order
+            int users = model.userCount;
+            int[] userStart = new int[users + 1];
+            for (int r = 0; r < rows; r++) {
+                if (rowItem[r] != FREE) {
+                    userStart[rowUser[r] + 1]++;
+                }
+            }
+            Arrays.parallelPrefix(userStart, Integer::sum);
+            int positions = userStart[users];
+            int[] seqItems = new int[positions];
+            long[] seqMovies = new long[positions];
+            int[] seqUser = new int[positions];
+            int[] next = Arrays.copyOf(userStart, users);
+            for (int r = 0; r < rows; r++) {
+                if (rowItem[r] != FREE) {
+                    int p = next[rowUser[r]]++;
+                    seqItems[p] = rowItem[r];
+                    seqMovies[p] = movieIds[r];
+                    seqUser[p] = rowUser[r];
+                }
+            }
+
+            for (int u = 0; u < users; u++) {
+                Watchlist list = model.watchlists[u];
+                list.movies = Arrays.copyOfRange(seqMovies, userStart[u], userStart[u + 1]);
+                list.items = Arrays.copyOfRange(seqItems, userStart[u], userStart[u + 1]);
+                list.size = list.items.length;
+                int[] distinct = list.items.clone();
+                Arrays.sort(distinct);
+                for (int i = 0; i < distinct.length; i++) {
+                    model.entries[distinct[i]]++;
+                    if (i == 0 || distinct[i] != distinct[i - 1]) {
+                        model.owners[distinct[i]]++;
+                    }
+                }
+            }
+
+            // Positions of each item, so every item's counts can be built by one task without locking
+            int items = model.itemCount;
+            int[] itemStart = new int[items + 1];
+            for (int p = 0; p < positions; p++) {
+                itemStart[seqItems[p] + 1]++;
+            }
+            Arrays.parallelPrefix(itemStart, Integer::sum);
+            int[] occurrences = new int[positions];
+            int[] nextOccurrence = Arrays.copyOf(itemStart, items);
+            for (int p = 0; p < positions; p++) {
+                occurrences[nextOccurrence[seqItems[p]]++] = p;
+            }
+
+            IntIntMap[] neighbors = model.neighbors;
+            ForkJoinPool.commonPool().invoke(new RangeTask(0, items, 64, item -> {
+                IntIntMap counts = new IntIntMap(4);
+                for (int o = itemStart[item]; o < itemStart[item + 1]; o++) {
+                    int p = occurrences[o];
+                    int u = seqUser[p];
+                    int to = Math.min(userStart[u + 1] - 1, p + window);
+                    for (int q = Math.max(userStart[u], p - window); q <= to; q++) {
+                        if (seqItems[q] != item) {
+                            counts.add(seqItems[q], 1);
+                        }
+                    }
+                }
+                neighbors[item] = counts.size == 0 ? null : counts;
+            }));
+            return model;
+        }
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final IntConsumer body;
+
+        RangeTask(int from, int to, int grain, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                for (int i = from; i < to; i++) {
+                    body.accept(i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, mid, grain, body), new RangeTask(mid, to, grain, body));
+        }
+    }
+
+    // One user's entries as parallel arrays, sorted by movie id
+    private static final class Watchlist {
+        long[] movies = new long[0];
+        int[] items = new int[0];
+        int size;
+
+        int indexOf(long movieId) {
+            return Arrays.binarySearch(movies, 0, size, movieId);
+        }
+
+        boolean contains(int item) {
+            for (int i = 0; i < size; i++) {
+                if (items[i] == item) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void insert(int pos, long movieId, int item) {
+            if (size == movies.length) {
+                int capacity = Math.max(4, size + (size >> 1));
+                movies = Arrays.copyOf(movies, capacity);
+                items = Arrays.copyOf(items, capacity);
+            }
+            System.arraycopy(movies, pos, movies, pos + 1, size - pos);
+            System.arraycopy(items, pos, items, pos + 1, size - pos);
+            movies[pos] = movieId;
+            items[pos] = item;
+            size++;
+        }
+
+        void removeAt(int pos) {
+            System.arraycopy(movies, pos + 1, movies, pos, size - pos - 1);
+            System.arraycopy(items, pos + 1, items, pos, size - pos - 1);
+            size--;
+        }
+    }
+
+    /**
+     * Int to int map with linear probing over two arrays. Keys are non-negative, a value that
+     * drops to zero removes its key, and get answers 0 for a missing key.
+     */
+    private static final class IntIntMap {
+        int[] keys;
+        int[] values;
+        int size;
+
+        IntIntMap(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, expected + expected / 3) * 2 - 1);
+            keys = new int[capacity];
+            values = new int[capacity];
+            Arrays.fill(keys, FREE);
+        }
+
+        int get(int key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; keys[slot] != FREE; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return 0;
+        }
+
+        void add(int key, int delta) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            for (; keys[slot] != FREE; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    values[slot] += delta;
+                    if (values[slot] == 0) {
+                        removeAt(slot);
+                    }
+                    return;
+                }
+            }
+            if (delta == 0) {
+                return;
+            }
+            keys[slot] = key;
+            values[slot] = delta;
+            if (++size > keys.length - (keys.length >> 2)) {
+                rehash(keys.length * 2);
+            }
+        }
+
+        // Backward-shift deletion: later keys of the probe run move up, so no tombstones are left
+        private void removeAt(int slot) {
+            int mask = keys.length - 1;
+            int hole = slot;
+            for (int next = (hole + 1) & mask; keys[next] != FREE; next = (next + 1) & mask) {
+                int home = hash(keys[next]) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    hole = next;
+                }
+            }
+            keys[hole] = FREE;
+            values[hole] = 0;
+            size--;
+        }
+
+        private void rehash(int capacity) {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[capacity];
+            values = new int[capacity];
+            Arrays.fill(keys, FREE);
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != FREE) {
+                    int slot = hash(oldKeys[i]) & mask;
+                    while (keys[slot] != FREE) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int hash(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    // User id to dense user index, -1 when absent; users are never removed
+    private static final class LongIntMap {
+        private long[] keys = new long[16];
+        // Index + 1, so that 0 marks a free slot
+        private int[] values = new int[16];
+        private int size;
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; values[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot] - 1;
+                }
+            }
+            return -1;
+        }
+
+        void put(long key, int value) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                long[] oldKeys = keys;
+                int[] oldValues = values;
+                keys = new long[oldKeys.length * 2];
+                values = new int[oldKeys.length * 2];
+                size = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldValues[i] != 0) {
+                        put(oldKeys[i], oldValues[i] - 1);
+                    }
+                }
+            }
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (values[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (values[slot] == 0) {
+                size++;
+            }
+            keys[slot] = key;
+            values[slot] = value + 1;
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    /**
+     * Bounded min-heap keeping the limit best items. Entries pack the score's float bits above
+     * the item id, which orders them by score as long as scores are not negative.
+     */
+    private static final class TopK {
+        private final long[] heap;
+        private int size;
+
+        TopK(int limit) {
+            heap = new long[limit];
+        }
+
+        void offer(int item, float score) {
+            long entry = (long) Float.floatToIntBits(score) << 32 | item;
+            if (size < heap.length) {
+                heap[size] = entry;
+                siftUp(size++);
+            } else if (entry > heap[0]) {
+                heap[0] = entry;
+                siftDown(0);
+            }
+        }
+
+        long[] sortedDescending() {
+            long[] sorted = Arrays.copyOf(heap, size);
+            Arrays.sort(sorted);
+            for (int i = 0, j = sorted.length - 1; i < j; i++, j--) {
+                long swap = sorted[i];
+                sorted[i] = sorted[j];
+                sorted[j] = swap;
+            }
+            return sorted;
+        }
+
+        static int item(long entry) {
+            return (int) entry;
+        }
+
+        static float score(long entry) {
+            return Float.intBitsToFloat((int) (entry >>> 32));
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[i] >= heap[parent]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                if (left < size && heap[left] < heap[smallest]) {
+                    smallest = left;
+                }
+                if (left + 1 < size && heap[left + 1] < heap[smallest]) {
+                    smallest = left + 1;
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            long swap = heap[i];
+            heap[i] = heap[j];
+            heap[j] = swap;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.dto.GenreFacet;
+import com.sb.main.server.entity.Genre;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Per-user movie counts by genre, kept in genre_counts so the facets are a primary key range
+ * read instead of a scan of the watchlist. Every write to movies adjusts the counts of the
+ * genres it adds or removes, inside the same transaction, so they never drift from the rows.
+ */
+@Service
+@RequiredArgsConstructor
+public class GenreFacetService {
+
+    private static final String ADJUST = "insert into genre_counts (user_id, genre, movie_count) values (?, ?, ?) "
+            + "on duplicate key update movie_count = movie_count + values(movie_count)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * One movie went from oldMask to newMask: 0 as oldMask for an insert, as newMask for a delete.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void movieChanged(long userId, long oldMask, long newMask) {
+        int[] deltas = new int[Long.SIZE];
+        count(deltas, oldMask & ~newMask, -1);
+        count(deltas, newMask & ~oldMask, 1);
+        adjust(userId, deltas);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void moviesAdded(long userId, Collection<Long> masks) {
+        int[] deltas = new int[Long.SIZE];
+        for (long mask : masks) {
+            count(deltas, mask, 1);
+        }
+        adjust(userId, deltas);
+    }
+
+    /**
+     * Genres with at least one movie, most frequent first.
+     */
+    @Transactional(readOnly = true)
+    public List<GenreFacet> facets(long userId) {
+        List<GenreFacet> facets = new ArrayList<>();
+        jdbcTemplate.query("select genre, movie_count from genre_counts where user_id = ? and movie_count > 0", rs -> {
+            Genre genre = Genre.fromBit(rs.getInt(1));
+            if (genre != null) {
+                facets.add(new GenreFacet(genre, genre.label(), rs.getInt(2)));
+            }
+        }, userId);
+        facets.sort(Comparator.comparingInt(GenreFacet::getCount).reversed().thenComparing(GenreFacet::getLabel));
+        return facets;
+    }
+
+    private static void count(int[] deltas, long mask, int delta) {
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            deltas[Long.numberOfTrailingZeros(rest)] += delta;
+        }
+    }
+
+    // Rows are touched in bit order, so two transactions on the same user lock them in the same order
+    private void adjust(long userId, int[] deltas) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int bit = 0; bit < deltas.length; bit++) {
+            if (deltas[bit] != 0) {
+                rows.add(new Object[]{userId, bit, deltas[bit]});
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADJUST, rows);
+        }
+    }
+}
@@ -1,36 +1,102 @@
 package com.sb.main.server.service;
 
+import com.sb.main.server.config.RedactedUrlObservationConvention;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.client.RestClient;
 
 import java.io.IOException;
-import java.util.Base64;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.Executors;
 
-import org.springframework.http.*;
-import org.springframework.web.client.RestTemplate;
-
+// Lazy, like the other outbound clients: nothing at startup needs it, so the HTTP client is built on the first upload
 @Service
-public class ImgBBService {
+@Lazy
+@ConditionalOnProperty(name = "poster.storage", havingValue = "imgbb", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ImgBBService implements PosterStorage {
 
     @Value("${imgbb.api.key}")
     private String imgbbApiKey;
 
-    public String uploadImage(MultipartFile file) throws IOException {
-        String url = "https://api.imgbb.com/1/upload?key=" + imgbbApiKey;
-        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-        body.add("image", Base64.getEncoder().encodeToString(file.getBytes()));
+    @Value("${imgbb.api.url:https://api.imgbb.com/1/upload}")
+    private String imgbbApiUrl;
+
+    @Value("${imgbb.timeout-ms:30000}")
+    private long timeoutMs;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final ObservationRegistry observationRegistry;
+
+    private RestClient restClient;
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+    @PostConstruct
+    public void init() {
+        // One shared client: the JDK HttpClient keeps a connection pool and does not buffer request bodies
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(timeoutMs));
+        if (virtualThreads) {
+            // The client's default executor is a cached platform pool that grows with in-flight exchanges
+            builder.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        HttpClient httpClient = builder.build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(timeoutMs));
+        this.restClient = RestClient.builder()
+                .requestFactory(requestFactory)
+                .observationRegistry(observationRegistry)
+                .observationConvention(new RedactedUrlObservationConvention())
+                .build();
+    }
+
+    @Override
+    public StoredPoster store(Path file) throws IOException {
+        Map data = uploadImage(file);
+        String url = (String) data.get("url");
+        // ImgBB resizes on its side; thumb and medium are missing for images already smaller than them
+        return new StoredPoster(url, variantUrl(data, "thumb", url), variantUrl(data, "medium", url));
+    }
 
-        HttpEntity<MultiValueMap<String, Object>> request = new HttpEntity<>(body, headers);
-        RestTemplate restTemplate = new RestTemplate();
+    /**
+     * Uploads the image as a binary multipart part, streamed from disk rather than
+     * Base64-encoded in memory, and returns the "data" object of the response.
+     */
+    public Map uploadImage(Path file) throws IOException {
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("image", new FileSystemResource(file));
+
+        // Timer imgbb.upload, tagged error=none or the exception type, covering retries' individual attempts
+        return Observation.createNotStarted("imgbb.upload", observationRegistry).observeChecked(() -> {
+            Map response = restClient.post()
+                    .uri(imgbbApiUrl + "?key={key}", imgbbApiKey)
+                    .contentType(MediaType.MULTIPART_FORM_DATA)
+                    .body(body)
+                    .retrieve()
+                    .body(Map.class);
+            if (response == null || !(response.get("data") instanceof Map data)) {
+                throw new IOException("Unexpected ImgBB response");
+            }
+            return data;
+        });
+    }
 
-        Map response = restTemplate.postForObject(url, request, Map.class);
-        return (String) ((Map) response.get("data")).get("url");
+    private static String variantUrl(Map data, String variant, String fallback) {
+        return data.get(variant) instanceof Map image && image.get("url") instanceof String url ? url : fallback;
     }
 }
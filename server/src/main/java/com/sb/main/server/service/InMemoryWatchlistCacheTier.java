@@ -0,0 +1,81 @@
+package com.sb.main.server.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sb.main.server.dto.MovieDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stand-in for a shared key-value store such as Redis. Values are kept serialized with an
+ * expiry, the way a remote store would hold them, so a networked implementation can replace
+ * it without changing callers.
+ */
+@Component
+@ConditionalOnProperty(name = "watchlist.cache.tier", havingValue = "memory")
+@RequiredArgsConstructor
+public class InMemoryWatchlistCacheTier implements WatchlistCacheTier {
+
+    private static final TypeReference<List<MovieDTO>> MOVIE_LIST = new TypeReference<>() {
+    };
+
+    @Value("${watchlist.cache.tier.ttl:PT5M}")
+    private Duration ttl;
+
+    @Value("${watchlist.cache.tier.max-entries:100000}")
+    private int maxEntries;
+
+    private final ObjectMapper objectMapper;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    private record Entry(long version, byte[] value, long expiresAt) {
+    }
+
+    @Override
+    public List<MovieDTO> get(Long userId, long version) {
+        Entry entry = entries.get(userId);
+        if (entry == null || entry.version() != version) {
+            return null;
+        }
+        if (System.currentTimeMillis() >= entry.expiresAt()) {
+            entries.remove(userId, entry);
+            return null;
+        }
+        try {
+            return objectMapper.readValue(entry.value(), MOVIE_LIST);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void put(Long userId, long version, List<MovieDTO> movies) {
+        if (entries.size() >= maxEntries) {
+            long now = System.currentTimeMillis();
+            entries.values().removeIf(entry -> entry.expiresAt() <= now);
+            if (entries.size() >= maxEntries) {
+                // A real store would evict by its own policy, dropping the write is the cheap equivalent
+                return;
+            }
+        }
+        try {
+            entries.put(userId, new Entry(version, objectMapper.writeValueAsBytes(movies), System.currentTimeMillis() + ttl.toMillis()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void evict(Long userId) {
+        entries.remove(userId);
+    }
+}
@@ -0,0 +1,73 @@
+package com.sb.main.server.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Shared limit kept in the database every node already uses, in rate_limit_buckets. Same
+ * algorithm as {@link RateLimiter} on wall-clock milliseconds: one conditional update grants
+ * a token, an insert creates the bucket on a key's first request.
+ * <p>
+ * Costs a round trip per granted request, so it is meant for small clusters; a store such as
+ * Redis can implement {@link SharedRateLimiter} the same way with a script.
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.shared", havingValue = "jdbc")
+@RequiredArgsConstructor
+public class JdbcSharedRateLimiter implements SharedRateLimiter {
+
+    private static final String TAKE_TOKEN = "update rate_limit_buckets set full_at = greatest(full_at, ?) + ? "
+            + "where bucket_key = ? and greatest(full_at, ?) + ? - ? <= ?";
+    private static final String CREATE_BUCKET = "insert ignore into rate_limit_buckets (bucket_key, full_at) values (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private Counter errors;
+    // Tests step time by hand
+    private LongSupplier currentTimeMillis = System::currentTimeMillis;
+
+    @PostConstruct
+    public void registerMetrics() {
+        errors = Counter.builder("ratelimit.shared.errors").register(meterRegistry);
+    }
+
+    @Override
+    public long tryAcquire(String key, RateLimiter.Limit limit) {
+        long now = currentTimeMillis.getAsLong();
+        long interval = Math.max(1, TimeUnit.NANOSECONDS.toMillis(limit.intervalNanos()));
+        long tolerance = interval * limit.burst();
+        try {
+            if (jdbcTemplate.update(TAKE_TOKEN, now, interval, key, now, interval, tolerance, now) == 1) {
+                return 0;
+            }
+            // No row yet, or the bucket is empty; losing the insert race to another node counts as empty
+            if (jdbcTemplate.update(CREATE_BUCKET, key, now + interval) == 1) {
+                return 0;
+            }
+            return TimeUnit.MILLISECONDS.toNanos(interval);
+        } catch (DataAccessException e) {
+            errors.increment();
+            return 0;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-interval:PT1M}")
+    public void evictIdle() {
+        try {
+            jdbcTemplate.update("delete from rate_limit_buckets where full_at <= ?", currentTimeMillis.getAsLong());
+        } catch (DataAccessException e) {
+            errors.increment();
+        }
+    }
+}
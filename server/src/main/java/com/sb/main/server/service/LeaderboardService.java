@@ -0,0 +1,381 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.dto.LeaderboardEntry;
+import com.sb.main.server.entity.Genre;
+import com.sb.main.server.entity.Movie;
+import com.sb.main.server.exception.ServiceOverloadedException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The public "most watchlisted" lists: titles by how many watchlist entries they have across all
+ * users, overall or per genre, all-time or added in the last 24 hours or 7 days. A title is a
+ * normalized name, see {@link CooccurrenceModel}, and the lists show it rather than any one user's
+ * spelling. Titles with fewer than min-count entries in a list's window are left off it, so a title
+ * only one or two users typed is never published.
+ * <p>
+ * A write only bumps a striped counter per title, genre and hour, so concurrent writers do not
+ * contend on a shared count and no request aggregates the movies table. Every flush-interval the
+ * counters are added to title_counts, rows other nodes changed are read back, and the lists are
+ * ranked again; requests are served the last ranking. On start the counts are loaded from
+ * title_counts (see LeaderboardInitializer), and until then requests are answered with 503.
+ * <p>
+ * The windows count additions: deleting an entry lowers its title's all-time count but not the
+ * hour it was added in, which the movies table does not record.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LeaderboardService {
+
+    public enum Window {
+        DAY("24h", 24),
+        WEEK("7d", 24 * 7),
+        ALL("all", 0);
+
+        private final String label;
+        private final int hours;
+
+        Window(String label, int hours) {
+            this.label = label;
+            this.hours = hours;
+        }
+
+        public static Window parse(String label) {
+            for (Window window : values()) {
+                if (window.label.equals(label.toLowerCase(Locale.ROOT))) {
+                    return window;
+                }
+            }
+            throw new IllegalArgumentException("window must be 24h, 7d or all");
+        }
+    }
+
+    private static final int ALL_GENRES = -1;
+    private static final long ALL_TIME = 0L;
+    private static final long HOUR_MILLIS = 3_600_000L;
+    private static final int MAX_TITLE_LENGTH = 255;
+    private static final int PAGE_SIZE = 10_000;
+    private static final String ADD = "insert into title_counts (title, genre, added_hour, movie_count, updated_at) values (?, ?, ?, ?, ?) "
+            + "on duplicate key update movie_count = movie_count + values(movie_count), updated_at = values(updated_at)";
+    private static final String SELECT = "select title, genre, added_hour, movie_count from title_counts ";
+    private static final Comparator<LeaderboardEntry> BY_COUNT = Comparator.comparingLong(LeaderboardEntry::getCount)
+            .thenComparing(LeaderboardEntry::getTitle, Comparator.reverseOrder());
+
+    private record Key(String title, int genre, long hour) {
+    }
+
+    private record Board(Window window, int genre) {
+    }
+
+    private record Flushed(Key key, Counter counter, long delta) {
+    }
+
+    // stored is the count in title_counts as last written or read by this node; pending what this
+    // node counted since and has not written yet
+    private static final class Counter {
+        private final LongAdder pending = new LongAdder();
+        private volatile long stored;
+
+        long count() {
+            return stored + pending.sum();
+        }
+    }
+
+    private static final class Tally {
+        private long count;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${leaderboard.size:100}")
+    private int size = 100;
+
+    @Value("${leaderboard.min-count:5}")
+    private int minCount = 5;
+
+    // Rows are re-read for this long after the last poll, to catch ones committed late or stamped
+    // by a node whose clock runs behind; reading a row twice is harmless
+    @Value("${leaderboard.poll-overlap:PT30S}")
+    private Duration pollOverlap;
+
+    private final Map<Key, Counter> counters = new ConcurrentHashMap<>();
+    private volatile Map<Board, List<LeaderboardEntry>> boards = Map.of();
+    private volatile boolean loaded;
+    // Only touched by the flushing thread once loaded
+    private long polledAt;
+    private long prunedHour;
+
+    public void movieAdded(String name, long genreMask) {
+        count(name, genreMask, 1, currentHour(System.currentTimeMillis()));
+    }
+
+    public void moviesAdded(List<Movie> movies) {
+        long hour = currentHour(System.currentTimeMillis());
+        for (Movie movie : movies) {
+            count(movie.getName(), movie.getGenreMask(), 1, hour);
+        }
+    }
+
+    public void movieDeleted(String name, long genreMask) {
+        count(name, genreMask, -1, ALL_TIME);
+    }
+
+    /**
+     * An edit moves the entry's all-time count to its new title or genres. The windows keep
+     * counting it where it was added.
+     */
+    public void movieChanged(String oldName, long oldGenreMask, String newName, long newGenreMask) {
+        if (oldGenreMask != newGenreMask || !title(oldName).equals(title(newName))) {
+            count(oldName, oldGenreMask, -1, ALL_TIME);
+            count(newName, newGenreMask, 1, ALL_TIME);
+        }
+    }
+
+    /**
+     * The most watchlisted titles in the window, in one genre or, for null, in all of them.
+     */
+    public List<LeaderboardEntry> top(Window window, Genre genre, int limit) {
+        if (!loaded) {
+            throw new ServiceOverloadedException("The leaderboard is still loading, try again shortly", 5);
+        }
+        List<LeaderboardEntry> board = boards.getOrDefault(new Board(window, genre == null ? ALL_GENRES : genre.bit()), List.of());
+        return board.subList(0, Math.min(limit, board.size()));
+    }
+
+    /**
+     * True on the first start after title_counts was created, while movies already has rows.
+     */
+    public boolean needsRecount() {
+        return jdbcTemplate.queryForList("select title from title_counts where added_hour = 0 limit 1", String.class).isEmpty()
+                && !jdbcTemplate.queryForList("select id from movies limit 1", Long.class).isEmpty();
+    }
+
+    /**
+     * Replaces the all-time counts in title_counts with ones counted from the movies table, in
+     * keyset pages. Meant for a first start, or after a node stopped without flushing its counts;
+     * entries written while it runs may be counted twice.
+     */
+    public void recount() {
+        long started = System.currentTimeMillis();
+        Map<Key, Tally> tallies = new HashMap<>();
+        long[] afterId = {0L};
+        int read;
+        do {
+            int[] rows = {0};
+            jdbcTemplate.query("select id, name, genre_mask from movies where id > ? order by id limit ?",
+                    (RowCallbackHandler) movie -> {
+                        rows[0]++;
+                        afterId[0] = movie.getLong(1);
+                        String title = title(movie.getString(2));
+                        if (title.isEmpty()) {
+                            return;
+                        }
+                        tallies.computeIfAbsent(new Key(title, ALL_GENRES, ALL_TIME), key -> new Tally()).count++;
+                        for (long rest = movie.getLong(3); rest != 0; rest &= rest - 1) {
+                            Key key = new Key(title, Long.numberOfTrailingZeros(rest), ALL_TIME);
+                            tallies.computeIfAbsent(key, k -> new Tally()).count++;
+                        }
+                    },
+                    afterId[0], PAGE_SIZE);
+            read = rows[0];
+        } while (read == PAGE_SIZE);
+
+        List<Map.Entry<Key, Tally>> rows = new ArrayList<>(tallies.entrySet());
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("delete from title_counts where added_hour = 0");
+            jdbcTemplate.batchUpdate(ADD, rows, 1000, (statement, row) -> {
+                statement.setString(1, row.getKey().title());
+                statement.setInt(2, row.getKey().genre());
+                statement.setLong(3, ALL_TIME);
+                statement.setLong(4, row.getValue().count);
+                statement.setLong(5, started);
+            });
+        });
+        log.info("Counted {} leaderboard rows from the movies table in {} ms", rows.size(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Reads the all-time counts and the last week's hours from title_counts. Counts made before
+     * this are kept as pending and flushed on top.
+     */
+    public void load() {
+        long now = System.currentTimeMillis();
+        long oldestHour = currentHour(now) - Window.WEEK.hours;
+        jdbcTemplate.query(SELECT + "where added_hour = 0 or added_hour > ?", (RowCallbackHandler) rows -> store(rows, oldestHour), oldestHour);
+        polledAt = now;
+        rank(now);
+        loaded = true;
+    }
+
+    @Scheduled(fixedDelayString = "${leaderboard.flush-interval:PT10S}", initialDelayString = "${leaderboard.flush-interval:PT10S}")
+    public void flush() {
+        if (!loaded) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try {
+            write(now);
+            poll(now);
+            prune(now);
+        } catch (DataAccessException | TransactionException e) {
+            // Whatever was not written stays pending and goes out with the next flush
+            log.warn("Flushing leaderboard counts failed: {}", e.getMessage());
+        }
+        rank(now);
+    }
+
+    private void count(String name, long genreMask, int delta, long hour) {
+        String title = title(name);
+        if (title.isEmpty()) {
+            return;
+        }
+        add(new Key(title, ALL_GENRES, ALL_TIME), delta);
+        if (hour != ALL_TIME) {
+            add(new Key(title, ALL_GENRES, hour), delta);
+        }
+        for (long rest = genreMask; rest != 0; rest &= rest - 1) {
+            int genre = Long.numberOfTrailingZeros(rest);
+            add(new Key(title, genre, ALL_TIME), delta);
+            if (hour != ALL_TIME) {
+                add(new Key(title, genre, hour), delta);
+            }
+        }
+    }
+
+    private void add(Key key, int delta) {
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(key, k -> new Counter());
+        }
+        counter.pending.add(delta);
+    }
+
+    private void write(long now) {
+        List<Flushed> batch = new ArrayList<>();
+        counters.forEach((key, counter) -> {
+            long delta = counter.pending.sum();
+            if (delta != 0) {
+                batch.add(new Flushed(key, counter, delta));
+            }
+        });
+        if (batch.isEmpty()) {
+            return;
+        }
+        // Every node writes rows in the same order, so concurrent flushes cannot deadlock
+        batch.sort(Comparator.comparing((Flushed row) -> row.key().title())
+                .thenComparingInt(row -> row.key().genre())
+                .thenComparingLong(row -> row.key().hour()));
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(ADD, batch, 1000, (statement, row) -> {
+            statement.setString(1, row.key().title());
+            statement.setInt(2, row.key().genre());
+            statement.setLong(3, row.key().hour());
+            statement.setLong(4, row.delta());
+            statement.setLong(5, now);
+        }));
+        // Subtracting what was written keeps increments made during the flush pending
+        for (Flushed row : batch) {
+            row.counter().stored += row.delta();
+            row.counter().pending.add(-row.delta());
+        }
+    }
+
+    private void poll(long now) {
+        long oldestHour = currentHour(now) - Window.WEEK.hours;
+        jdbcTemplate.query(SELECT + "where updated_at >= ?", (RowCallbackHandler) rows -> store(rows, oldestHour),
+                polledAt - pollOverlap.toMillis());
+        polledAt = now;
+    }
+
+    private void store(ResultSet rows, long oldestHour) throws SQLException {
+        Key key = new Key(rows.getString(1), rows.getInt(2), rows.getLong(3));
+        if (key.hour() == ALL_TIME || key.hour() > oldestHour) {
+            counters.computeIfAbsent(key, k -> new Counter()).stored = rows.getLong(4);
+        }
+    }
+
+    // Once an hour: drops the hours that have left the longest window, in the table and here
+    private void prune(long now) {
+        long hour = currentHour(now);
+        if (hour == prunedHour) {
+            return;
+        }
+        long oldestHour = hour - Window.WEEK.hours;
+        jdbcTemplate.update("delete from title_counts where added_hour <> 0 and added_hour <= ?", oldestHour);
+        counters.entrySet().removeIf(entry -> entry.getKey().hour() != ALL_TIME && entry.getKey().hour() <= oldestHour
+                && entry.getValue().pending.sum() == 0);
+        prunedHour = hour;
+    }
+
+    private void rank(long now) {
+        long hour = currentHour(now);
+        Map<Board, Map<String, Tally>> tallies = new HashMap<>();
+        counters.forEach((key, counter) -> {
+            long count = counter.count();
+            if (count <= 0) {
+                return;
+            }
+            for (Window window : Window.values()) {
+                boolean inWindow = window == Window.ALL
+                        ? key.hour() == ALL_TIME
+                        : key.hour() != ALL_TIME && key.hour() > hour - window.hours;
+                if (inWindow) {
+                    tallies.computeIfAbsent(new Board(window, key.genre()), board -> new HashMap<>())
+                            .computeIfAbsent(key.title(), title -> new Tally()).count += count;
+                }
+            }
+        });
+
+        Map<Board, List<LeaderboardEntry>> ranked = new HashMap<>();
+        tallies.forEach((board, titles) -> ranked.put(board, best(titles)));
+        boards = ranked;
+    }
+
+    private List<LeaderboardEntry> best(Map<String, Tally> titles) {
+        PriorityQueue<LeaderboardEntry> top = new PriorityQueue<>(BY_COUNT);
+        for (Map.Entry<String, Tally> title : titles.entrySet()) {
+            long count = title.getValue().count;
+            if (count < minCount) {
+                continue;
+            }
+            top.offer(new LeaderboardEntry(title.getKey(), count));
+            if (top.size() > size) {
+                top.poll();
+            }
+        }
+        List<LeaderboardEntry> best = new ArrayList<>(top);
+        best.sort(BY_COUNT.reversed());
+        return List.copyOf(best);
+    }
+
+    private static String title(String name) {
+        String title = CooccurrenceModel.normalizeTitle(name);
+        return title.length() > MAX_TITLE_LENGTH ? title.substring(0, MAX_TITLE_LENGTH) : title;
+    }
+
+    private static long currentHour(long now) {
+        return now / HOUR_MILLIS;
+    }
+}
@@ -0,0 +1,150 @@
+package com.sb.main.server.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Stores posters on the local filesystem, content-addressed by SHA-256 so identical
+ * uploads are kept once. Thumbnail and medium variants are rendered at upload time
+ * and served by PosterController.
+ */
+@Service
+@ConditionalOnProperty(name = "poster.storage", havingValue = "local")
+public class LocalPosterStorage implements PosterStorage {
+
+    public static final String ORIGINAL = "original";
+    public static final String THUMB = "thumb";
+    public static final String MEDIUM = "medium";
+
+    private static final int THUMB_WIDTH = 185;
+    private static final int MEDIUM_WIDTH = 500;
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    @Value("${poster.local.path:posters}")
+    private String rootPath;
+
+    // Prefix for the URLs handed to clients, e.g. https://api.example.com
+    @Value("${poster.local.base-url:}")
+    private String baseUrl;
+
+    private Path root;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Files.createDirectories(Path.of(rootPath).toAbsolutePath());
+    }
+
+    @Override
+    public StoredPoster store(Path file) throws IOException {
+        String hash = sha256(file);
+        Path dir = Files.createDirectories(root.resolve(hash.substring(0, 2)).resolve(hash));
+
+        // Same content was stored before: nothing to write. The original goes last so its
+        // presence means the variants are complete.
+        if (!Files.exists(dir.resolve(ORIGINAL))) {
+            writeVariants(file, dir);
+            writeAtomically(dir.resolve(ORIGINAL), tmp -> Files.copy(file, tmp, StandardCopyOption.REPLACE_EXISTING));
+        }
+
+        return new StoredPoster(urlOf(hash, ORIGINAL), urlOf(hash, variantOrOriginal(dir, THUMB)), urlOf(hash, variantOrOriginal(dir, MEDIUM)));
+    }
+
+    /**
+     * Resolves a stored variant, or null if the hash or variant name is not one we produce.
+     */
+    public Path resolve(String hash, String variant) {
+        if (!HASH.matcher(hash).matches() || !(ORIGINAL.equals(variant) || THUMB.equals(variant) || MEDIUM.equals(variant))) {
+            return null;
+        }
+        Path path = root.resolve(hash.substring(0, 2)).resolve(hash).resolve(variant);
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    private void writeVariants(Path file, Path dir) throws IOException {
+        BufferedImage image;
+        try (InputStream in = Files.newInputStream(file)) {
+            image = ImageIO.read(in);
+        }
+        if (image == null) {
+            // Not a format ImageIO can decode, clients get the original for every size
+            return;
+        }
+        writeVariant(image, THUMB_WIDTH, dir.resolve(THUMB));
+        writeVariant(image, MEDIUM_WIDTH, dir.resolve(MEDIUM));
+    }
+
+    private void writeVariant(BufferedImage image, int width, Path target) throws IOException {
+        if (image.getWidth() <= width) {
+            return;
+        }
+        int height = Math.max(1, Math.round(image.getHeight() * (width / (float) image.getWidth())));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        writeAtomically(target, tmp -> ImageIO.write(scaled, "jpg", tmp.toFile()));
+    }
+
+    private String variantOrOriginal(Path dir, String variant) {
+        return Files.exists(dir.resolve(variant)) ? variant : ORIGINAL;
+    }
+
+    private String urlOf(String hash, String variant) {
+        return baseUrl + "/posters/" + hash + "/" + variant;
+    }
+
+    // Readers never see a half-written file: write next to the target and rename over it
+    private static void writeAtomically(Path target, FileWriter writer) throws IOException {
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            writer.write(tmp);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static String sha256(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface FileWriter {
+        void write(Path tmp) throws IOException;
+    }
+}
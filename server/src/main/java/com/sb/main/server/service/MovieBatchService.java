@@ -0,0 +1,201 @@
+package com.sb.main.server.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.sb.main.server.dto.BatchImportResult;
+import com.sb.main.server.dto.MovieDTO;
+import com.sb.main.server.entity.Genre;
+import com.sb.main.server.entity.Movie;
+import com.sb.main.server.entity.PosterStatus;
+import com.sb.main.server.entity.User;
+import com.sb.main.server.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import io.micrometer.observation.annotation.Observed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk import and export of a user's watchlist. Imports are read row by row and inserted
+ * in chunks, one transaction per chunk, using JDBC batching. Rows that fail validation or
+ * cannot be stored are reported by position and do not affect the rest of the batch.
+ */
+@Service
+@Observed(name = "movie.batch")
+@RequiredArgsConstructor
+public class MovieBatchService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_COLUMN_LENGTH = 255;
+
+    private final UserRepository userRepository;
+    private final MovieService movieService;
+    private final MovieSearchService movieSearchService;
+    private final WatchlistVersionService watchlistVersionService;
+    private final GenreFacetService genreFacetService;
+    private final RecommendationService recommendationService;
+    private final LeaderboardService leaderboardService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${movies.batch.chunk-size:500}")
+    private int chunkSize;
+
+    private record Pending(int index, MovieDTO movie) {
+    }
+
+    public BatchImportResult importMovies(String email, MediaType contentType, InputStream body) throws IOException {
+        // Resolved once for the whole batch, rows only carry a reference to it
+        Long userId = userRepository.findIdByEmail(email).orElseThrow();
+        BatchImportResult result = new BatchImportResult();
+        List<Pending> pending = new ArrayList<>(chunkSize);
+
+        try (MovieRowReader reader = MovieRowReader.open(contentType, body, objectMapper)) {
+            int index = 0;
+            for (MovieRowReader.Row row = reader.next(); row != null; row = reader.next(), index++) {
+                String error = row.error() != null ? row.error() : validate(row.movie());
+                if (error != null) {
+                    reportError(result, index, error);
+                    continue;
+                }
+                pending.add(new Pending(index, row.movie()));
+                if (pending.size() >= chunkSize) {
+                    persistChunk(userId, pending, result);
+                    pending.clear();
+                }
+            }
+        }
+        persistChunk(userId, pending, result);
+        if (result.getImported() > 0) {
+            watchlistVersionService.watchlistChanged(email);
+        }
+        return result;
+    }
+
+    public void exportMovies(String email, MediaType format, OutputStream out) throws IOException {
+        if (MovieRowReader.TEXT_CSV.isCompatibleWith(format)) {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+                MovieCsv.writeRecord(writer, "name", "description", "link", "genre", "posterUrl");
+                movieService.streamUserMovies(email, movie -> {
+                    try {
+                        MovieCsv.writeRecord(writer, movie.getName(), movie.getDescription(), movie.getLink(), movie.getGenre(), movie.getPosterUrl());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            return;
+        }
+
+        try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+            movieService.streamUserMovies(email, movie -> {
+                try {
+                    writer.write(movie);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private void persistChunk(Long userId, List<Pending> pending, BatchImportResult result) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            List<Movie> saved = transactionTemplate.execute(status -> insert(userId, pending));
+            afterInsert(userId, saved, result);
+        } catch (PersistenceException | DataAccessException e) {
+            entityManager.clear();
+            // Some row in the chunk was rejected by the database: retry one by one so the rest still land
+            for (Pending row : pending) {
+                try {
+                    afterInsert(userId, transactionTemplate.execute(status -> insert(userId, List.of(row))), result);
+                } catch (PersistenceException | DataAccessException rowError) {
+                    entityManager.clear();
+                    reportError(result, row.index(), "Could not be saved");
+                }
+            }
+        }
+    }
+
+    private List<Movie> insert(Long userId, List<Pending> pending) {
+        User user = entityManager.getReference(User.class, userId);
+        List<Movie> movies = new ArrayList<>(pending.size());
+        for (Pending row : pending) {
+            Movie movie = toMovie(row.movie());
+            movie.setUser(user);
+            entityManager.persist(movie);
+            movies.add(movie);
+        }
+        // hibernate.jdbc.batch_size groups these inserts into batched statements
+        entityManager.flush();
+        entityManager.clear();
+        genreFacetService.moviesAdded(userId, movies.stream().map(Movie::getGenreMask).toList());
+        return movies;
+    }
+
+    private void afterInsert(Long userId, List<Movie> saved, BatchImportResult result) {
+        result.setImported(result.getImported() + saved.size());
+        movieSearchService.indexAll(userId, saved);
+        recommendationService.moviesAdded(userId, saved);
+        leaderboardService.moviesAdded(saved);
+    }
+
+    private static Movie toMovie(MovieDTO dto) {
+        Movie movie = new Movie();
+        movie.setName(dto.getName().trim());
+        movie.setDescription(dto.getDescription());
+        movie.setLink(dto.getLink());
+        movie.setGenre(dto.getGenre());
+        movie.setGenreMask(Genre.maskOf(dto.getGenre()));
+        if (dto.getPosterUrl() != null) {
+            movie.setPosterUrl(dto.getPosterUrl());
+            movie.setPosterThumbUrl(dto.getPosterThumbUrl() != null ? dto.getPosterThumbUrl() : dto.getPosterUrl());
+            movie.setPosterMediumUrl(dto.getPosterMediumUrl() != null ? dto.getPosterMediumUrl() : dto.getPosterUrl());
+            movie.setPosterStatus(PosterStatus.READY);
+        }
+        return movie;
+    }
+
+    private static String validate(MovieDTO movie) {
+        if (movie == null) {
+            return "Empty row";
+        }
+        if (movie.getName() == null || movie.getName().isBlank()) {
+            return "name is required";
+        }
+        if (tooLong(movie.getName()) || tooLong(movie.getDescription()) || tooLong(movie.getLink())
+                || tooLong(movie.getGenre()) || tooLong(movie.getPosterUrl())) {
+            return "Fields are limited to " + MAX_COLUMN_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    private static boolean tooLong(String value) {
+        return value != null && value.length() > MAX_COLUMN_LENGTH;
+    }
+
+    private static void reportError(BatchImportResult result, int index, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new BatchImportResult.ItemError(index, message));
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.sb.main.server.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sb.main.server.dto.MovieDTO;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pulls watchlist rows one at a time out of an import body (JSON array, NDJSON or CSV),
+ * so a batch is never held in memory as a whole. A row that cannot be read is returned
+ * with an error and reading continues with the next one.
+ */
+abstract class MovieRowReader implements Closeable {
+
+    public static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    record Row(MovieDTO movie, String error) {
+    }
+
+    /**
+     * Returns the next row, or null once the input is exhausted.
+     */
+    abstract Row next() throws IOException;
+
+    static MovieRowReader open(MediaType contentType, InputStream in, ObjectMapper objectMapper) throws IOException {
+        if (MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)) {
+            return new NdjsonReader(reader(in), objectMapper);
+        } else if (TEXT_CSV.isCompatibleWith(contentType)) {
+            return new CsvReader(reader(in));
+        } else if (MediaType.APPLICATION_JSON.isCompatibleWith(contentType)) {
+            return new JsonArrayReader(objectMapper.createParser(in), objectMapper);
+        }
+        throw new IllegalArgumentException("Unsupported import format: " + contentType);
+    }
+
+    private static BufferedReader reader(InputStream in) {
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    private static final class JsonArrayReader extends MovieRowReader {
+        private final JsonParser parser;
+        private final ObjectMapper objectMapper;
+
+        JsonArrayReader(JsonParser parser, ObjectMapper objectMapper) throws IOException {
+            this.parser = parser;
+            this.objectMapper = objectMapper;
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of movies");
+            }
+        }
+
+        @Override
+        Row next() throws IOException {
+            if (parser.nextToken() == JsonToken.END_ARRAY) {
+                return null;
+            }
+            // Read as a tree first: a value of the wrong shape then only costs its own row
+            JsonNode node = parser.readValueAsTree();
+            try {
+                return new Row(objectMapper.treeToValue(node, MovieDTO.class), null);
+            } catch (JsonProcessingException e) {
+                return new Row(null, "Invalid movie: " + e.getOriginalMessage());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+
+    private static final class NdjsonReader extends MovieRowReader {
+        private final BufferedReader reader;
+        private final ObjectMapper objectMapper;
+
+        NdjsonReader(BufferedReader reader, ObjectMapper objectMapper) {
+            this.reader = reader;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        Row next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+
+            try {
+                return new Row(objectMapper.readValue(line, MovieDTO.class), null);
+            } catch (IOException e) {
+                return new Row(null, "Invalid JSON line");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with a header row naming the columns (name, description, link, genre, posterUrl).
+     */
+    private static final class CsvReader extends MovieRowReader {
+        private final BufferedReader reader;
+        private Map<String, Integer> columns;
+
+        CsvReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        Row next() throws IOException {
+            if (columns == null) {
+                List<String> header = MovieCsv.readRecord(reader);
+                if (header == null) {
+                    return null;
+                }
+                columns = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    columns.put(header.get(i).trim(), i);
+                }
+                if (!columns.containsKey("name")) {
+                    throw new IllegalArgumentException("CSV header must contain a name column");
+                }
+            }
+
+            List<String> record;
+            do {
+                record = MovieCsv.readRecord(reader);
+                if (record == null) {
+                    return null;
+                }
+            } while (record.size() == 1 && record.get(0).isBlank());
+
+            MovieDTO movie = new MovieDTO();
+            movie.setName(column(record, "name"));
+            movie.setDescription(column(record, "description"));
+            movie.setLink(column(record, "link"));
+            movie.setGenre(column(record, "genre"));
+            movie.setPosterUrl(column(record, "posterUrl"));
+            return new Row(movie, null);
+        }
+
+        private String column(List<String> record, String name) {
+            Integer index = columns.get(name);
+            if (index == null || index >= record.size() || record.get(index).isEmpty()) {
+                return null;
+            }
+            return record.get(index);
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.dto.MovieSearchRow;
+import com.sb.main.server.entity.Movie;
+import com.sb.main.server.repository.MovieRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Embedded Lucene index over the name, description and genre of every watchlist entry.
+ * MovieService keeps it in sync on writes; while it is rebuilding or after a failed
+ * write it reports itself as not ready and callers fall back to the LIKE queries. A failed
+ * write also schedules a rebuild.
+ * <p>
+ * A persisted index is committed every search.index.commit-interval. Each commit records
+ * whether it holds every change made so far: before the first change after a clean commit
+ * a commit marks the index dirty, so an index left behind by a crash is rebuilt on start.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MovieSearchService {
+
+    private static final String ID = "id";
+    private static final String USER = "user";
+    private static final String NAME = "name";
+    private static final String DESCRIPTION = "description";
+    private static final String GENRE = "genre";
+
+    private static final String CLEAN = "clean";
+
+    private final MovieRepository movieRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    // Blank keeps the index in memory, it is then rebuilt from the database on every start
+    @Value("${search.index.path:}")
+    private String indexPath;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private TransactionTemplate readOnly;
+    private volatile boolean ready;
+    private volatile boolean stale;
+
+    // Changes to the index hold the read lock, commits the write lock, so a commit never misses a
+    // change made before it. committedClean: the last commit holds every change made so far.
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+    private volatile boolean committedClean;
+
+    @PostConstruct
+    public void open() throws IOException {
+        directory = indexPath.isBlank() ? new ByteBuffersDirectory() : FSDirectory.open(Path.of(indexPath));
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+        searcherManager = new SearcherManager(writer, null);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        for (Map.Entry<String, String> data : writer.getLiveCommitData()) {
+            if (CLEAN.equals(data.getKey())) {
+                committedClean = Boolean.parseBoolean(data.getValue());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (isPersistent() && !stale) {
+            commit(true);
+        }
+        searcherManager.close();
+        writer.rollback();
+        directory.close();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    /**
+     * Whether the index can be used as it is on start: its last commit was clean and it holds
+     * as many movies as the table. An in-memory index starts empty, so only with no movies.
+     */
+    public boolean isInSync() throws IOException {
+        if (isPersistent() && !committedClean) {
+            return false;
+        }
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            return searcher.getIndexReader().numDocs() == movieRepository.count();
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    public void index(Long id, Long userId, String name, String description, String genre) {
+        change(() -> writer.updateDocument(new Term(ID, id.toString()), toDocument(id, userId, name, description, genre)));
+    }
+
+    /**
+     * Indexes a batch of freshly inserted movies of one user with a single searcher refresh.
+     */
+    public void indexAll(Long userId, List<Movie> movies) {
+        change(() -> {
+            for (Movie movie : movies) {
+                writer.updateDocument(new Term(ID, movie.getId().toString()),
+                        toDocument(movie.getId(), userId, movie.getName(), movie.getDescription(), movie.getGenre()));
+            }
+        });
+    }
+
+    public void delete(Long id) {
+        change(() -> writer.deleteDocuments(new Term(ID, id.toString())));
+    }
+
+    /**
+     * Replaces the index with the movies table, read in a read-only transaction. Searches fall
+     * back to the database meanwhile.
+     */
+    public synchronized void rebuild() throws IOException {
+        ready = false;
+        stale = false;
+        markDirty();
+        writer.deleteAll();
+        try {
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<MovieSearchRow> rows = movieRepository.streamSearchRows()) {
+                    for (MovieSearchRow row : (Iterable<MovieSearchRow>) rows::iterator) {
+                        writer.updateDocument(new Term(ID, row.getId().toString()),
+                                toDocument(row.getId(), row.getUserId(), row.getName(), row.getDescription(), row.getGenre()));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        commit(true);
+        searcherManager.maybeRefreshBlocking();
+        ready = true;
+    }
+
+    /**
+     * Rebuilds a stale index, or else commits the changes made since the last commit. An index
+     * not yet checked on start is left alone, committing it would mark it clean.
+     */
+    @Scheduled(fixedDelayString = "${search.index.commit-interval:PT30S}", initialDelayString = "${search.index.commit-interval:PT30S}")
+    public synchronized void maintain() {
+        try {
+            if (stale) {
+                log.info("Rebuilding the stale search index");
+                rebuild();
+            } else if (ready && isPersistent() && !committedClean) {
+                commit(true);
+            }
+        } catch (IOException | DataAccessException | TransactionException e) {
+            markStale(e);
+        }
+    }
+
+    /**
+     * Returns ids of the user's movies matching the text, best match first. Every word of the
+     * text has to hit one of the fields exactly, as a prefix or within a small edit distance.
+     */
+    public List<Long> search(Long userId, String text, int limit) throws IOException {
+        List<String> words = analyze(text);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(USER, userId.toString())), BooleanClause.Occur.FILTER);
+        for (String word : words) {
+            query.add(wordQuery(word), BooleanClause.Occur.MUST);
+        }
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs hits = searcher.search(query.build(), limit);
+            List<Long> ids = new ArrayList<>(hits.scoreDocs.length);
+            for (ScoreDoc hit : hits.scoreDocs) {
+                ids.add(Long.valueOf(searcher.storedFields().document(hit.doc).get(ID)));
+            }
+            return ids;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    private Query wordQuery(String word) {
+        BooleanQuery.Builder any = new BooleanQuery.Builder();
+        addField(any, NAME, word, 3f);
+        addField(any, GENRE, word, 2f);
+        addField(any, DESCRIPTION, word, 1f);
+        return any.build();
+    }
+
+    private void addField(BooleanQuery.Builder any, String field, String word, float boost) {
+        Term term = new Term(field, word);
+        // Exact hits outrank prefix hits, which outrank typo-tolerant ones
+        any.add(new BoostQuery(new TermQuery(term), boost * 4), BooleanClause.Occur.SHOULD);
+        any.add(new BoostQuery(new PrefixQuery(term), boost * 2), BooleanClause.Occur.SHOULD);
+        if (word.length() > 2) {
+            any.add(new BoostQuery(new FuzzyQuery(term, word.length() > 5 ? 2 : 1), boost), BooleanClause.Occur.SHOULD);
+        }
+    }
+
+    private List<String> analyze(String text) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (TokenStream tokens = analyzer.tokenStream(NAME, text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken()) {
+                words.add(term.toString());
+            }
+            tokens.end();
+        }
+        return words;
+    }
+
+    private static Document toDocument(Long id, Long userId, String name, String description, String genre) {
+        Document doc = new Document();
+        doc.add(new StringField(ID, id.toString(), Field.Store.YES));
+        doc.add(new StringField(USER, userId.toString(), Field.Store.NO));
+        doc.add(new TextField(NAME, nullToEmpty(name), Field.Store.NO));
+        doc.add(new TextField(DESCRIPTION, nullToEmpty(description), Field.Store.NO));
+        doc.add(new TextField(GENRE, nullToEmpty(genre), Field.Store.NO));
+        return doc;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private void change(IndexChange change) {
+        try {
+            while (true) {
+                commitLock.readLock().lock();
+                try {
+                    // A clean commit on disk would hide this change after a crash: mark the index dirty first
+                    if (!committedClean || !isPersistent()) {
+                        change.apply();
+                        break;
+                    }
+                } finally {
+                    commitLock.readLock().unlock();
+                }
+                markDirty();
+            }
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            markStale(e);
+        }
+    }
+
+    private void markDirty() throws IOException {
+        if (isPersistent() && committedClean) {
+            commit(false);
+        }
+    }
+
+    private void commit(boolean clean) throws IOException {
+        commitLock.writeLock().lock();
+        try {
+            writer.setLiveCommitData(Map.of(CLEAN, Boolean.toString(clean)).entrySet());
+            writer.commit();
+            committedClean = clean;
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+    }
+
+    private boolean isPersistent() {
+        return !indexPath.isBlank();
+    }
+
+    private void markStale(Exception e) {
+        // Searches fall back to the database until the scheduled rebuild
+        ready = false;
+        stale = true;
+        log.warn("Search index update failed, falling back to LIKE queries until it is rebuilt: {}", e.getMessage());
+    }
+
+    private interface IndexChange {
+        void apply() throws IOException;
+    }
+}
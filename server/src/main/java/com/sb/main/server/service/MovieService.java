@@ -1,86 +1,307 @@
 package com.sb.main.server.service;
 
+import com.sb.main.server.dto.GenreFacet;
 import com.sb.main.server.dto.MovieDTO;
+import com.sb.main.server.dto.MoviePage;
+import com.sb.main.server.dto.Recommendation;
+import com.sb.main.server.entity.Genre;
 import com.sb.main.server.entity.Movie;
-import com.sb.main.server.entity.User;
+import com.sb.main.server.entity.PosterStatus;
 import com.sb.main.server.repository.MovieRepository;
 import com.sb.main.server.repository.UserRepository;
+import io.micrometer.observation.annotation.Observed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Base64;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Observed(name = "movie.service")
 @RequiredArgsConstructor
 public class MovieService {
     private final MovieRepository movieRepository;
     private final UserRepository userRepository;
-    private final ImgBBService imgBBService;
+    private final PosterUploadService posterUploadService;
+    private final MovieSearchService movieSearchService;
+    private final WatchlistVersionService watchlistVersionService;
+    private final WatchlistCache watchlistCache;
+    private final GenreFacetService genreFacetService;
+    private final RecommendationService recommendationService;
+    private final LeaderboardService leaderboardService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${movies.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${movies.page.max-size:500}")
+    private int maxPageSize;
+
+    // A committed write and the watchlist version it was committed under
+    private record Write(MovieDTO movie, long watchlistVersion) {
+    }
 
     public MovieDTO addMovie(String email, String name, String description, String link, String genre, MultipartFile poster) throws IOException {
-        User user = userRepository.findByEmail(email).orElseThrow();
+        Long userId = userId(email);
         Movie movie = new Movie();
         movie.setName(name);
         movie.setDescription(description);
         movie.setLink(link);
         movie.setGenre(genre);
-        movie.setUser(user);
+        movie.setGenreMask(Genre.maskOf(genre));
+        movie.setUser(userRepository.getReferenceById(userId));
 
-        if (poster != null && !poster.isEmpty()) {
-            movie.setPosterUrl(imgBBService.uploadImage(poster));
+        Path spooled = spoolPoster(movie, poster);
+        Write write = transactionTemplate.execute(status -> {
+            MovieDTO inserted = MovieDTO.from(movieRepository.save(movie));
+            genreFacetService.movieChanged(userId, 0L, inserted.getGenreMask());
+            return new Write(inserted, watchlistVersionService.watchlistChanged(email));
+        });
+        MovieDTO saved = write.movie();
+        if (spooled != null) {
+            posterUploadService.submit(saved.getId(), email, spooled);
         }
-
-        return MovieDTO.from(movieRepository.save(movie));
+        watchlistCache.movieSaved(userId, write.watchlistVersion(), saved);
+        movieSearchService.index(saved.getId(), userId, name, description, genre);
+        recommendationService.movieSaved(saved.getId(), userId, name, saved.getGenreMask());
+        leaderboardService.movieAdded(name, saved.getGenreMask());
+        return saved;
     }
 
     public MovieDTO updateMovie(Long id, String email, String name, String description, String link, String genre, MultipartFile poster) throws IOException {
-        Movie movie = movieRepository.findById(id).orElseThrow();
-        if (!movie.getUser().getEmail().equals(email)) {
-            throw new RuntimeException("Unauthorized");
-        }
+        Movie movie = movieRepository.findByIdAndUserEmail(id, email)
+                .orElseThrow(() -> notOwned(id, new RuntimeException("Unauthorized")));
 
+        String oldName = movie.getName();
         movie.setName(name);
         movie.setDescription(description);
         movie.setLink(link);
         movie.setGenre(genre);
+        long oldGenreMask = movie.getGenreMask();
+        movie.setGenreMask(Genre.maskOf(genre));
 
-        if (poster != null && !poster.isEmpty()) {
-            movie.setPosterUrl(imgBBService.uploadImage(poster));
+        // getId() on the lazy proxy does not initialize it
+        Long userId = movie.getUser().getId();
+        Path spooled = spoolPoster(movie, poster);
+        // A concurrent update fails the @Version check and rolls back its count changes with it
+        Write write = transactionTemplate.execute(status -> {
+            MovieDTO updated = MovieDTO.from(movieRepository.save(movie));
+            genreFacetService.movieChanged(userId, oldGenreMask, updated.getGenreMask());
+            return new Write(updated, watchlistVersionService.watchlistChanged(email));
+        });
+        MovieDTO saved = write.movie();
+        if (spooled != null) {
+            posterUploadService.submit(saved.getId(), email, spooled);
         }
-
-        return MovieDTO.from(movieRepository.save(movie));
+        watchlistCache.movieSaved(userId, write.watchlistVersion(), saved);
+        movieSearchService.index(saved.getId(), userId, name, description, genre);
+        recommendationService.movieSaved(saved.getId(), userId, name, saved.getGenreMask());
+        leaderboardService.movieChanged(oldName, oldGenreMask, name, saved.getGenreMask());
+        return saved;
     }
 
-    public List<MovieDTO> getUserMovies(String email, String name, String genre) {
-        User user = userRepository.findByEmail(email).orElseThrow();
-        List<Movie> movies;
+    /**
+     * The user's movies, optionally filtered by name, by genre text, and by genres: a comma
+     * separated list of {@link Genre} names that a movie must carry all of, or with matchAll
+     * false any of. A cache miss loads the list in this read-only transaction, so from a replica
+     * when there is one.
+     */
+    @Transactional(readOnly = true)
+    public List<MovieDTO> getUserMovies(String email, String name, String genre, String genres, boolean matchAll) {
+        long genreMask = parseGenres(genres);
+        Long userId = userId(email);
+        List<MovieDTO> movies = watchlistCache.get(userId, email, () -> movieRepository.findByUserId(userId));
+        if (movies != null) {
+            return filter(movies, name, genre, genreMask, matchAll);
+        }
 
-        if (name != null && genre != null) {
-            movies = movieRepository.findByUserIdAndNameContainingIgnoreCaseAndGenreIgnoreCase(user.getId(), name, genre);
+        // Too large to cache: let the database do the filtering
+        if (genreMask != 0) {
+            // The bitmask narrows the rows down, the rarer text filters are applied on the result
+            List<MovieDTO> tagged = matchAll
+                    ? movieRepository.findByUserEmailAndAllGenres(email, genreMask)
+                    : movieRepository.findByUserEmailAndAnyGenre(email, genreMask);
+            return filter(tagged, name, genre, 0L, matchAll);
+        } else if (name != null && genre != null) {
+            return movieRepository.findByUserEmailAndNameContainingIgnoreCaseAndGenreIgnoreCase(email, name, genre);
         } else if (name != null) {
-            movies = movieRepository.findByUserIdAndNameContainingIgnoreCase(user.getId(), name);
+            return movieRepository.findByUserEmailAndNameContainingIgnoreCase(email, name);
         } else if (genre != null) {
-            movies = movieRepository.findByUserIdAndGenreIgnoreCase(user.getId(), genre);
-        } else {
-            movies = movieRepository.findByUserId(user.getId());
+            return movieRepository.findByUserEmailAndGenreIgnoreCase(email, genre);
+        }
+        return movieRepository.findByUserEmail(email);
+    }
+
+    /**
+     * Relevance-ordered search over name, description and genre. Falls back to the
+     * name LIKE query while the search index is unavailable.
+     */
+    @Transactional(readOnly = true)
+    public List<MovieDTO> searchUserMovies(String email, String text, int limit) throws IOException {
+        if (!movieSearchService.isReady()) {
+            return movieRepository.findByUserEmailAndNameContainingIgnoreCase(email, text, Limit.of(limit));
+        }
+
+        Long userId = userId(email);
+        List<Long> ids = movieSearchService.search(userId, text, limit);
+        if (ids.isEmpty()) {
+            return List.of();
         }
 
-        return movies.stream().map(MovieDTO::from).collect(Collectors.toList());
+        Map<Long, MovieDTO> byId = movieRepository.findByIdInAndUserEmail(ids, email).stream()
+                .collect(Collectors.toMap(MovieDTO::getId, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public MoviePage getUserMoviesPage(String email, String cursor, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        long afterId = cursor == null ? 0L : decodeCursor(cursor);
+
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        List<MovieDTO> movies = movieRepository.findPageByUserEmail(email, afterId, Limit.of(pageSize + 1));
+        boolean hasMore = movies.size() > pageSize;
+        List<MovieDTO> items = hasMore ? movies.subList(0, pageSize) : movies;
+
+        String next = hasMore ? encodeCursor(items.get(items.size() - 1).getId()) : null;
+        return new MoviePage(items, next);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamUserMovies(String email, Consumer<MovieDTO> sink) {
+        try (Stream<MovieDTO> movies = movieRepository.streamByUserEmail(email)) {
+            movies.forEach(sink);
+        }
     }
 
+    @Transactional(readOnly = true)
     public MovieDTO getMovieById(Long id, String email) {
-        Movie movie = movieRepository.findById(id).orElseThrow();
-        if (!movie.getUser().getEmail().equals(email)) throw new AccessDeniedException("Unauthorized");
-        return MovieDTO.from(movie);
+        MovieDTO cached = watchlistCache.find(email, id);
+        if (cached != null) {
+            return cached;
+        }
+        return movieRepository.findDtoByIdAndUserEmail(id, email)
+                .orElseThrow(() -> notOwned(id, new AccessDeniedException("Unauthorized")));
+    }
+
+    @Transactional(readOnly = true)
+    public List<GenreFacet> getGenreFacets(String email) {
+        return genreFacetService.facets(userId(email));
+    }
+
+    /**
+     * Titles that share watchlists with this movie, most similar first.
+     */
+    public List<Recommendation> getSimilarMovies(Long id, String email, int limit) {
+        MovieDTO movie = getMovieById(id, email);
+        return recommendationService.similar(movie.getName(), movie.getGenreMask(), limit);
+    }
+
+    public List<Recommendation> getRecommendations(String email, int limit) {
+        return recommendationService.recommend(userId(email), limit);
     }
 
     public void deleteMovie(Long id, String email) {
-        Movie movie = movieRepository.findById(id).orElseThrow();
-        if (!movie.getUser().getEmail().equals(email)) throw new RuntimeException("Unauthorized");
-        movieRepository.delete(movie);
+        Long userId = userId(email);
+        Write write = transactionTemplate.execute(status -> {
+            // Locks the row, so no update can change its name or genres between reading and deleting it
+            Optional<MovieDTO> movie = movieRepository.findDtoByIdAndUserEmailForUpdate(id, email);
+            if (movie.isEmpty() || movieRepository.deleteByIdAndUserEmail(id, email) == 0) {
+                return null;
+            }
+            genreFacetService.movieChanged(userId, movie.get().getGenreMask(), 0L);
+            return new Write(movie.get(), watchlistVersionService.watchlistChanged(email));
+        });
+        if (write == null) {
+            throw notOwned(id, new RuntimeException("Unauthorized"));
+        }
+        MovieDTO deleted = write.movie();
+        watchlistCache.movieDeleted(userId, write.watchlistVersion(), id);
+        movieSearchService.delete(id);
+        recommendationService.movieDeleted(id, userId);
+        leaderboardService.movieDeleted(deleted.getName(), deleted.getGenreMask());
+    }
+
+    private Long userId(String email) {
+        return watchlistCache.userId(email, key -> userRepository.findIdByEmail(key).orElseThrow());
+    }
+
+    // Same semantics as the filtered queries: name is a case-insensitive substring, genre a case-insensitive match
+    private static List<MovieDTO> filter(List<MovieDTO> movies, String name, String genre, long genreMask, boolean matchAll) {
+        if (name == null && genre == null && genreMask == 0) {
+            return movies;
+        }
+        String needle = name == null ? null : name.toLowerCase(Locale.ROOT);
+        return movies.stream()
+                .filter(movie -> genreMask == 0 || (matchAll
+                        ? (movie.getGenreMask() & genreMask) == genreMask
+                        : (movie.getGenreMask() & genreMask) != 0))
+                .filter(movie -> needle == null || (movie.getName() != null && movie.getName().toLowerCase(Locale.ROOT).contains(needle)))
+                .filter(movie -> genre == null || genre.equalsIgnoreCase(movie.getGenre()))
+                .toList();
+    }
+
+    private static long parseGenres(String genres) {
+        if (genres == null || genres.isBlank()) {
+            return 0L;
+        }
+        long mask = 0L;
+        for (String name : genres.split(",")) {
+            if (name.isBlank()) {
+                continue;
+            }
+            Genre genre = Genre.find(name);
+            if (genre == null) {
+                throw new IllegalArgumentException("Unknown genre: " + name.trim());
+            }
+            mask |= genre.mask();
+        }
+        return mask;
+    }
+
+    // The upload itself runs after the row is saved, the movie is returned with a PENDING poster
+    private Path spoolPoster(Movie movie, MultipartFile poster) throws IOException {
+        if (poster == null || poster.isEmpty()) {
+            return null;
+        }
+        Path spooled = posterUploadService.spool(poster);
+        movie.setPosterStatus(PosterStatus.PENDING);
+        movie.setPosterPendingSince(System.currentTimeMillis());
+        return spooled;
+    }
+
+    // Only reached when the ownership-filtered query found nothing: tell a missing movie from someone else's
+    private RuntimeException notOwned(Long id, RuntimeException unauthorized) {
+        return movieRepository.existsById(id) ? unauthorized : new NoSuchElementException();
+    }
+
+    private static String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastId.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
     }
 }
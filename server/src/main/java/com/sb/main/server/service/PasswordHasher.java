@@ -0,0 +1,124 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs password hashing on a core-sized pool with a bounded queue, so a login burst cannot take
+ * every CPU from the rest of the API. Work beyond the queue is rejected right away with a
+ * {@link ServiceOverloadedException}.
+ * <p>
+ * The pool stays on platform threads in virtual-thread mode: hashing is pure CPU and the pool
+ * size is the limit.
+ */
+@Service
+@RequiredArgsConstructor
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${auth.hashing.threads:0}")
+    private int threads;
+
+    @Value("${auth.hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${auth.hashing.retry-after-seconds:2}")
+    private long retryAfterSeconds;
+
+    private ThreadPoolExecutor executor;
+    private Timer encodeTimer;
+    private Timer matchTimer;
+    private Counter rejected;
+
+    @PostConstruct
+    public void init() {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        executor = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("password-hash-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        encodeTimer = Timer.builder("auth.hashing.duration").tag("operation", "encode").register(meterRegistry);
+        matchTimer = Timer.builder("auth.hashing.duration").tag("operation", "match").register(meterRegistry);
+        rejected = Counter.builder("auth.hashing.rejected").register(meterRegistry);
+        Gauge.builder("auth.hashing.queue", executor, pool -> pool.getQueue().size()).register(meterRegistry);
+        Gauge.builder("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public String encode(String rawPassword) {
+        return await(submit(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword))));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return await(submit(() -> matchTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword))));
+    }
+
+    /**
+     * True when the hash was made with a lower cost than the encoder now uses.
+     * Cheap, it only parses the hash.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Hashes in the background and hands the result over, or silently does nothing when the
+     * pool is busy. For work that can just as well happen next time.
+     */
+    public void encodeLater(String rawPassword, Consumer<String> onEncoded) {
+        try {
+            executor.execute(() -> onEncoded.accept(encodeTimer.record(() -> passwordEncoder.encode(rawPassword))));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+        }
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceOverloadedException("Too many sign-in attempts, try again shortly", retryAfterSeconds);
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
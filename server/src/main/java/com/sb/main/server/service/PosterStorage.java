@@ -0,0 +1,19 @@
+package com.sb.main.server.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Where uploaded posters end up. Selected with poster.storage (imgbb or local).
+ */
+public interface PosterStorage {
+
+    StoredPoster store(Path file) throws IOException;
+
+    /**
+     * Public URLs of the original poster and its pre-sized variants. A variant falls back
+     * to the original when the backend could not produce it.
+     */
+    record StoredPoster(String url, String thumbUrl, String mediumUrl) {
+    }
+}
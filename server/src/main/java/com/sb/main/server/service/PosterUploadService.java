@@ -0,0 +1,173 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.dto.StalePoster;
+import com.sb.main.server.entity.PosterStatus;
+import com.sb.main.server.repository.MovieRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Uploads posters off the request thread. The poster is spooled to a temp file while the
+ * multipart request is still alive, then a small worker pool hands it to the configured
+ * PosterStorage with exponential backoff and records the outcome on the movie row.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PosterUploadService {
+
+    @Lazy
+    private final PosterStorage posterStorage;
+    private final MovieRepository movieRepository;
+    private final WatchlistVersionService watchlistVersionService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${upload.workers:4}")
+    private int workers;
+
+    @Value("${upload.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${upload.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${upload.backoff-ms:1000}")
+    private long backoffMs;
+
+    @Value("${upload.stale-after:PT15M}")
+    private Duration staleAfter;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private record Upload(Long movieId, String ownerEmail, Path file) {
+    }
+
+    private ScheduledExecutorService executor;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        // Scheduled so that retries wait in the queue instead of sleeping on a worker. With virtual
+        // threads the workers still cap concurrent uploads, but no longer hold a platform thread each
+        ThreadFactory threads = virtualThreads
+                ? Thread.ofVirtual().name("poster-upload-", 0).factory()
+                : Thread.ofPlatform().name("poster-upload-", 0).factory();
+        executor = Executors.newScheduledThreadPool(workers, threads);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Copies the poster out of the request so it survives after the response is sent.
+     */
+    public Path spool(MultipartFile poster) throws IOException {
+        Path file = Files.createTempFile("poster-", ".upload");
+        poster.transferTo(file);
+        return file;
+    }
+
+    /**
+     * Queues the spooled poster for upload. When the queue is full the movie is marked
+     * FAILED right away rather than holding the caller.
+     */
+    public void submit(Long movieId, String ownerEmail, Path file) {
+        Upload upload = new Upload(movieId, ownerEmail, file);
+        if (queued.incrementAndGet() > queueCapacity) {
+            finish(upload, null, PosterStatus.FAILED);
+            return;
+        }
+        executor.execute(() -> attempt(upload, 1));
+    }
+
+    /**
+     * Uploads only live in the memory of the node that queued them, so a restart or crash
+     * leaves their movies PENDING for good. Runs on start and then periodically on every node,
+     * and fails posters pending for longer than any upload takes: the owner can upload again.
+     */
+    @Scheduled(fixedDelayString = "${upload.stale-check-interval:PT5M}")
+    public void failStaleUploads() {
+        long cutoff = System.currentTimeMillis() - staleAfter.toMillis();
+        int failed = 0;
+        for (StalePoster stale : movieRepository.findStalePosters(cutoff)) {
+            Boolean changed = transactionTemplate.execute(tx -> {
+                if (movieRepository.failStalePoster(stale.getId(), cutoff) == 0) {
+                    return false;
+                }
+                watchlistVersionService.watchlistChanged(stale.getOwnerEmail());
+                return true;
+            });
+            if (Boolean.TRUE.equals(changed)) {
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            log.info("Failed {} poster uploads lost with a restart", failed);
+        }
+    }
+
+    public int queued() {
+        return queued.get();
+    }
+
+    private void attempt(Upload upload, int attempt) {
+        try {
+            PosterStorage.StoredPoster poster = posterStorage.store(upload.file());
+            finish(upload, poster, PosterStatus.READY);
+        } catch (Exception e) {
+            if (attempt >= maxAttempts || executor.isShutdown()) {
+                log.atWarn()
+                        .addKeyValue("movieId", upload.movieId())
+                        .addKeyValue("attempts", attempt)
+                        .log("Poster upload for movie {} failed after {} attempts: {}", upload.movieId(), attempt, e.getMessage());
+                finish(upload, null, PosterStatus.FAILED);
+                return;
+            }
+            long delay = backoffMs << (attempt - 1);
+            executor.schedule(() -> attempt(upload, attempt + 1), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void finish(Upload upload, PosterStorage.StoredPoster poster, PosterStatus status) {
+        queued.decrementAndGet();
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                if (status == PosterStatus.READY) {
+                    movieRepository.updatePoster(upload.movieId(), poster.url(), poster.thumbUrl(), poster.mediumUrl(), status);
+                } else {
+                    movieRepository.updatePosterStatus(upload.movieId(), status);
+                }
+                // The bulk update bumped the row version without us learning the new value: cached lists must go
+                watchlistVersionService.watchlistChanged(upload.ownerEmail());
+            });
+        } finally {
+            try {
+                Files.deleteIfExists(upload.file());
+            } catch (IOException ignored) {
+                // Temp directory cleanup will get it
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.sb.main.server.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets kept as a single timestamp per key (GCRA): the time at which the bucket would
+ * be full again. Taking a token is one compare-and-set, so keys never contend on a lock.
+ * <p>
+ * A key whose timestamp has passed holds a full bucket, which is exactly what a missing key
+ * means, so idle keys can be dropped at any time without changing any decision.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimiter {
+
+    /**
+     * perMinute tokens are refilled evenly over a minute, at most burst can be taken at once.
+     */
+    public record Limit(int perMinute, int burst) {
+
+        long intervalNanos() {
+            return TimeUnit.MINUTES.toNanos(1) / perMinute;
+        }
+    }
+
+    @Value("${rate-limit.max-keys:100000}")
+    private int maxKeys;
+
+    private final Optional<SharedRateLimiter> shared;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final LongAdder evictions = new LongAdder();
+    // Tests step time by hand
+    private LongSupplier nanoTime = System::nanoTime;
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("ratelimit.keys", buckets, Map::size).register(meterRegistry);
+        FunctionCounter.builder("ratelimit.evictions", evictions, LongAdder::sum).register(meterRegistry);
+    }
+
+    /**
+     * Takes a token for key. Returns 0 when it was granted, otherwise how many nanoseconds to
+     * wait before the next one is.
+     */
+    public long tryAcquire(String key, Limit limit) {
+        long interval = limit.intervalNanos();
+        long tolerance = interval * limit.burst();
+        AtomicLong bucket = bucket(key);
+        while (true) {
+            long now = nanoTime.getAsLong();
+            long full = bucket.get();
+            long next = Math.max(full - now, 0) + now + interval;
+            long wait = next - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(full, next)) {
+                break;
+            }
+        }
+        // Only what this node let through goes to the shared limit, it is a network call
+        return shared.map(limiter -> limiter.tryAcquire(key, limit)).orElse(0L);
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-interval:PT1M}")
+    public void evictIdle() {
+        long now = nanoTime.getAsLong();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    private AtomicLong bucket(String key) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            evictArbitrary();
+        }
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(nanoTime.getAsLong()));
+    }
+
+    private void evictArbitrary() {
+        // Full buckets go first for free; past that a dropped key just gets a fresh bucket
+        evictIdle();
+        int toEvict = buckets.size() - maxKeys + Math.max(1, maxKeys / 10);
+        Iterator<String> it = buckets.keySet().iterator();
+        while (toEvict-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.dto.Recommendation;
+import com.sb.main.server.entity.Movie;
+import com.sb.main.server.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * "Similar titles" and per-user recommendations from which titles share watchlists, see
+ * {@link CooccurrenceModel}. The model is built from the movies table on start and kept current
+ * by MovieService and MovieBatchService once their writes have committed.
+ * <p>
+ * Each node holds its own model and only hears of the writes it made itself, so the model is
+ * rebuilt from the table every recommendations.rebuild-interval to take in the other nodes' writes.
+ * <p>
+ * Until the first build finishes requests are answered with 503. Writes made during a build are
+ * queued and replayed onto the new model, which is safe because applying an entry twice is a no-op.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecommendationService {
+
+    private static final int PAGE_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // How many positions apart two entries of a watchlist may be and still count as co-occurring
+    @Value("${recommendations.window:10}")
+    private int window;
+
+    @Value("${recommendations.min-owners:2}")
+    private int minOwners;
+
+    @Value("${recommendations.seed-items:50}")
+    private int seedItems;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Both guarded by lock; pending is non-null while a build is running
+    private CooccurrenceModel model;
+    private List<Consumer<CooccurrenceModel>> pending;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("recommendations.titles", this, service -> service.size(CooccurrenceModel::itemCount)).register(meterRegistry);
+        Gauge.builder("recommendations.users", this, service -> service.size(CooccurrenceModel::userCount)).register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return model != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads every watchlist entry in keyset pages and builds a new model from them, serving the
+     * previous one, if any, meanwhile.
+     */
+    @Scheduled(fixedDelayString = "${recommendations.rebuild-interval:PT1H}", initialDelayString = "${recommendations.rebuild-interval:PT1H}")
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        CooccurrenceModel.Builder builder = CooccurrenceModel.builder(window, minOwners);
+        CooccurrenceModel built = null;
+        try {
+            long[] afterId = {0L};
+            int read;
+            do {
+                int before = builder.rows();
+                jdbcTemplate.query("select id, user_id, name, genre_mask from movies where id > ? and user_id is not null order by id limit ?",
+                        rows -> {
+                            afterId[0] = rows.getLong(1);
+                            builder.add(afterId[0], rows.getLong(2), rows.getString(3), rows.getLong(4));
+                        },
+                        afterId[0], PAGE_SIZE);
+                read = builder.rows() - before;
+            } while (read == PAGE_SIZE);
+            built = builder.build();
+            log.info("Built recommendations from {} movies ({} titles, {} users) in {} ms", builder.rows(),
+                    built.itemCount(), built.userCount(), (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (built != null) {
+                    for (Consumer<CooccurrenceModel> change : pending) {
+                        change.accept(built);
+                    }
+                    model = built;
+                }
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public void movieSaved(long movieId, long userId, String name, long genreMask) {
+        write(model -> model.add(movieId, userId, name, genreMask));
+    }
+
+    public void moviesAdded(long userId, List<Movie> movies) {
+        write(model -> movies.forEach(movie -> model.add(movie.getId(), userId, movie.getName(), movie.getGenreMask())));
+    }
+
+    public void movieDeleted(long movieId, long userId) {
+        write(model -> model.remove(movieId, userId));
+    }
+
+    public List<Recommendation> similar(String name, long genreMask, int limit) {
+        lock.readLock().lock();
+        try {
+            return built().similar(name, genreMask, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Recommendation> recommend(long userId, int limit) {
+        lock.readLock().lock();
+        try {
+            return built().recommend(userId, limit, seedItems);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Consumer<CooccurrenceModel> change) {
+        lock.writeLock().lock();
+        try {
+            if (model != null) {
+                change.accept(model);
+            }
+            if (pending != null) {
+                pending.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private CooccurrenceModel built() {
+        if (model == null) {
+            throw new ServiceOverloadedException("Recommendations are still being built, try again shortly", 5);
+        }
+        return model;
+    }
+
+    private double size(ToIntFunction<CooccurrenceModel> count) {
+        lock.readLock().lock();
+        try {
+            return model == null ? 0 : count.applyAsInt(model);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
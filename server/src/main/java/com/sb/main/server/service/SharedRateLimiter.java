@@ -0,0 +1,15 @@
+package com.sb.main.server.service;
+
+/**
+ * Optional cluster-wide limit behind the per-node {@link RateLimiter}, so a client spreading
+ * requests over several nodes still gets one budget. Selected with rate-limit.shared; absent
+ * by default.
+ */
+public interface SharedRateLimiter {
+
+    /**
+     * Same contract as {@link RateLimiter#tryAcquire}: 0 when granted, else nanoseconds to wait.
+     * Should grant when the backing store is unavailable rather than fail the request.
+     */
+    long tryAcquire(String key, RateLimiter.Limit limit);
+}
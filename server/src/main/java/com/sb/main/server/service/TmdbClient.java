@@ -0,0 +1,89 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.config.RedactedUrlObservationConvention;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thin client for the TMDB v3 API returning raw response bodies, which the catalog
+ * proxy caches and relays without re-serializing. Lazy, so startup does not build its HTTP client.
+ */
+@Service
+@Lazy
+@RequiredArgsConstructor
+public class TmdbClient {
+
+    @Value("${tmdb.api.url:https://api.themoviedb.org/3}")
+    private String baseUrl;
+
+    @Value("${tmdb.api.key:}")
+    private String apiKey;
+
+    @Value("${tmdb.timeout-ms:5000}")
+    private long timeoutMs;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${tmdb.max-concurrent-requests:64}")
+    private int maxConcurrentRequests;
+
+    private final ObservationRegistry observationRegistry;
+
+    private RestClient restClient;
+    private Semaphore permits;
+
+    @PostConstruct
+    public void init() {
+        // On virtual threads the request pool no longer bounds how many calls wait on TMDB at once
+        permits = new Semaphore(maxConcurrentRequests);
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(timeoutMs));
+        if (virtualThreads) {
+            // The client's default executor is a cached platform pool that grows with in-flight exchanges
+            builder.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        HttpClient httpClient = builder.build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(timeoutMs));
+        this.restClient = RestClient.builder()
+                .baseUrl(baseUrl)
+                .requestFactory(requestFactory)
+                .observationRegistry(observationRegistry)
+                .observationConvention(new RedactedUrlObservationConvention())
+                .build();
+    }
+
+    public byte[] get(String path, MultiValueMap<String, String> params) {
+        try {
+            if (!permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new ResourceAccessException("Too many concurrent TMDB requests");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted waiting for a TMDB request slot");
+        }
+        try {
+            return restClient.get()
+                    .uri(uri -> uri.path(path).queryParams(params).queryParam("api_key", apiKey).build())
+                    .retrieve()
+                    .body(byte[].class);
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.entity.TokenRevocation;
+import com.sb.main.server.exception.ServiceOverloadedException;
+import com.sb.main.server.repository.TokenRevocationRepository;
+import com.sb.main.server.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Which tokens have been revoked, answered from memory so that checking a token costs no query.
+ * A token is revoked when its session was signed out, or when it was issued under an older
+ * generation than the user's current one (password change, sign out everywhere).
+ * <p>
+ * Sign-outs are stored in token_revocations and applied locally right away; every node polls
+ * the table for rows written by the others, so a sign-out reaches the whole cluster within
+ * jwt.revocation.poll-interval. Rows and memory entries are dropped once the longest-lived
+ * token they can apply to has expired.
+ * <p>
+ * Until the first poll has loaded the table, no token can be told apart from a revoked one:
+ * checks fail with {@link ServiceOverloadedException}, and readiness stays down (see
+ * TokenRevocationHealthIndicator).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenRevocationService {
+
+    private record GenerationFloor(long generation, long expiresAt) {
+    }
+
+    private final TokenRevocationRepository revocationRepository;
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${jwt.refresh-token-ttl:P30D}")
+    private Duration refreshTokenTtl;
+
+    // Rows are re-read for this long after the last poll, to catch ones committed late or
+    // stamped by a node whose clock runs behind; applying a row twice is harmless
+    @Value("${jwt.revocation.poll-overlap:PT30S}")
+    private Duration pollOverlap;
+
+    private final Map<Long, GenerationFloor> generationFloors = new ConcurrentHashMap<>();
+    private final Map<String, Long> revokedSessions = new ConcurrentHashMap<>();
+    private volatile long polledAt;
+    private volatile boolean loaded;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("jwt.revocations", revokedSessions, Map::size).tag("kind", "session").register(meterRegistry);
+        Gauge.builder("jwt.revocations", generationFloors, Map::size).tag("kind", "generation").register(meterRegistry);
+        // polledAt is 0, so this loads every revocation still in force
+        poll();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public boolean isRevoked(long userId, long generation, String sessionId) {
+        if (!loaded) {
+            throw new ServiceOverloadedException("Sign-outs are still loading, try again shortly", 5);
+        }
+        GenerationFloor floor = generationFloors.get(userId);
+        return (floor != null && generation < floor.generation()) || (sessionId != null && revokedSessions.containsKey(sessionId));
+    }
+
+    public void revokeSession(long userId, String sessionId) {
+        long now = System.currentTimeMillis();
+        apply(revocationRepository.save(new TokenRevocation(null, userId, sessionId, null, now, now + refreshTokenTtl.toMillis())));
+    }
+
+    /**
+     * Revokes every token issued to the user so far and returns the generation to issue new ones under.
+     */
+    @Transactional
+    public long revokeAll(long userId) {
+        userRepository.bumpTokenGeneration(userId);
+        long generation = userRepository.findTokenGenerationById(userId).orElseThrow();
+        long now = System.currentTimeMillis();
+        apply(revocationRepository.save(new TokenRevocation(null, userId, null, generation, now, now + refreshTokenTtl.toMillis())));
+        return generation;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.poll-interval:PT2S}", initialDelayString = "${jwt.revocation.poll-interval:PT2S}")
+    public void poll() {
+        long now = System.currentTimeMillis();
+        try {
+            revocationRepository.findByCreatedAtGreaterThanEqualAndExpiresAtGreaterThan(polledAt - pollOverlap.toMillis(), now)
+                    .forEach(this::apply);
+            polledAt = now;
+            if (!loaded) {
+                loaded = true;
+                log.info("Token revocations loaded, accepting signed-in requests");
+            }
+        } catch (DataAccessException | TransactionException e) {
+            // Keep polledAt, the next poll picks up what this one missed. Also lets the node
+            // start while the database is unreachable, and load everything once it is back
+            log.warn("Polling token revocations failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelay = 3_600_000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        revokedSessions.values().removeIf(expiresAt -> expiresAt <= now);
+        generationFloors.values().removeIf(floor -> floor.expiresAt() <= now);
+        try {
+            revocationRepository.deleteExpired(now);
+        } catch (DataAccessException e) {
+            log.warn("Deleting expired token revocations failed: {}", e.getMessage());
+        }
+    }
+
+    private void apply(TokenRevocation revocation) {
+        if (revocation.getSessionId() != null) {
+            revokedSessions.merge(revocation.getSessionId(), revocation.getExpiresAt(), Math::max);
+        }
+        if (revocation.getGeneration() != null) {
+            GenerationFloor floor = new GenerationFloor(revocation.getGeneration(), revocation.getExpiresAt());
+            generationFloors.merge(revocation.getUserId(), floor,
+                    (current, candidate) -> candidate.generation() > current.generation() ? candidate : current);
+        }
+    }
+}
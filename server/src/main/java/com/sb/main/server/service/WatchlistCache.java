@@ -0,0 +1,213 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.dto.MovieDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Per-user cache of watchlists and of the email to user id mapping, bounded by user count.
+ * <p>
+ * Each cached list is tagged with the watchlist version it was loaded under (see
+ * {@link WatchlistVersionService}) and is only served while that version is current, so
+ * every change that bumps the version also invalidates the list, including a load that
+ * raced with a write. The second tier keeps the version with each list as well. Writes made
+ * through {@link MovieService} patch the list in place instead of dropping it.
+ */
+@Component
+@RequiredArgsConstructor
+public class WatchlistCache {
+
+    @Value("${watchlist.cache.max-users:10000}")
+    private int maxUsers;
+
+    @Value("${watchlist.cache.max-movies-per-user:2000}")
+    private int maxMoviesPerUser;
+
+    @Value("${watchlist.cache.ttl:PT10M}")
+    private Duration ttl;
+
+    private final WatchlistVersionService watchlistVersionService;
+    private final Optional<WatchlistCacheTier> secondTier;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Long> userIds = new ConcurrentHashMap<>();
+    private final Map<Long, Entry> watchlists = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder tierHits = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // movies is null for users whose list is too large to cache, they keep using filtered queries
+    private record Entry(long version, long expiresAt, List<MovieDTO> movies) {
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        FunctionCounter.builder("watchlist.cache.requests", hits, LongAdder::sum).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("watchlist.cache.requests", misses, LongAdder::sum).tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("watchlist.cache.tier.hits", tierHits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("watchlist.cache.evictions", evictions, LongAdder::sum).register(meterRegistry);
+        Gauge.builder("watchlist.cache.size", watchlists, Map::size).register(meterRegistry);
+    }
+
+    public Long userId(String email, Function<String, Long> loader) {
+        Long userId = userIds.get(email);
+        if (userId != null) {
+            return userId;
+        }
+        if (userIds.size() >= maxUsers) {
+            evictArbitrary(userIds, maxUsers);
+        }
+        return userIds.computeIfAbsent(email, loader);
+    }
+
+    /**
+     * The user's full watchlist, loading it on a miss. Returns null when the list is known to
+     * be too large to cache, callers should then query for the view they need.
+     */
+    public List<MovieDTO> get(Long userId, String email, Supplier<List<MovieDTO>> loader) {
+        long version = watchlistVersionService.watchlistVersion(email);
+        long now = System.currentTimeMillis();
+        Entry entry = watchlists.get(userId);
+        if (entry != null && entry.version() == version && now < entry.expiresAt()) {
+            hits.increment();
+            return entry.movies();
+        }
+
+        misses.increment();
+        List<MovieDTO> movies = secondTier.map(tier -> tier.get(userId, version)).orElse(null);
+        if (movies != null) {
+            tierHits.increment();
+        } else {
+            movies = List.copyOf(loader.get());
+        }
+
+        boolean cacheable = movies.size() <= maxMoviesPerUser;
+        // A write committed during the load leaves the version moved on: keep the list out of the shared tier
+        if (cacheable && watchlistVersionService.watchlistVersion(email) == version) {
+            List<MovieDTO> loaded = movies;
+            secondTier.ifPresent(tier -> tier.put(userId, version, loaded));
+        }
+        put(userId, new Entry(version, now + ttl.toMillis(), cacheable ? movies : null));
+        return movies;
+    }
+
+    /**
+     * The user's movie with this id when their list is cached and current, else null.
+     */
+    public MovieDTO find(String email, Long movieId) {
+        Long userId = userIds.get(email);
+        Entry entry = userId == null ? null : watchlists.get(userId);
+        if (entry == null || entry.movies() == null
+                || entry.version() != watchlistVersionService.watchlistVersion(email)
+                || System.currentTimeMillis() >= entry.expiresAt()) {
+            return null;
+        }
+        for (MovieDTO movie : entry.movies()) {
+            if (movie.getId().equals(movieId)) {
+                hits.increment();
+                return movie;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Applies a committed add or update to the cached list. watchlistVersion is the version
+     * returned by the {@link WatchlistVersionService#watchlistChanged} call for this write.
+     */
+    public void movieSaved(Long userId, long watchlistVersion, MovieDTO saved) {
+        patch(userId, watchlistVersion, movies -> {
+            List<MovieDTO> patched = new ArrayList<>(movies.size() + 1);
+            boolean replaced = false;
+            for (MovieDTO movie : movies) {
+                if (movie.getId().equals(saved.getId())) {
+                    patched.add(saved);
+                    replaced = true;
+                } else {
+                    patched.add(movie);
+                }
+            }
+            if (!replaced) {
+                patched.add(saved);
+            }
+            return patched;
+        });
+    }
+
+    public void movieDeleted(Long userId, long watchlistVersion, Long movieId) {
+        patch(userId, watchlistVersion, movies -> movies.stream()
+                .filter(movie -> !movie.getId().equals(movieId))
+                .toList());
+    }
+
+    public void invalidateUser(Long userId) {
+        watchlists.remove(userId);
+        userIds.values().removeIf(userId::equals);
+        secondTier.ifPresent(tier -> tier.evict(userId));
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long tierHits() {
+        return tierHits.sum();
+    }
+
+    public int size() {
+        return watchlists.size();
+    }
+
+    // Only a list exactly one version behind can be patched: anything older missed another change
+    private void patch(Long userId, long watchlistVersion, UnaryOperator<List<MovieDTO>> change) {
+        watchlists.computeIfPresent(userId, (id, entry) -> {
+            if (entry.movies() == null || entry.version() != watchlistVersion - 1) {
+                return null;
+            }
+            List<MovieDTO> patched = List.copyOf(change.apply(entry.movies()));
+            return patched.size() <= maxMoviesPerUser ? new Entry(watchlistVersion, entry.expiresAt(), patched) : null;
+        });
+        secondTier.ifPresent(tier -> tier.evict(userId));
+    }
+
+    private void put(Long userId, Entry entry) {
+        if (watchlists.size() >= maxUsers) {
+            evictArbitrary(watchlists, maxUsers);
+        }
+        watchlists.put(userId, entry);
+    }
+
+    private <K> void evictArbitrary(Map<K, ?> map, int max) {
+        // No recency tracking: dropping an arbitrary tenth is cheap and a dropped user just reloads
+        int toEvict = map.size() - max + Math.max(1, max / 10);
+        Iterator<K> it = map.keySet().iterator();
+        while (toEvict-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.dto.MovieDTO;
+
+import java.util.List;
+
+/**
+ * Optional shared tier behind the per-node watchlist cache, so nodes can fill each other's
+ * misses. Selected with watchlist.cache.tier; absent by default.
+ * <p>
+ * Each entry is stored with the watchlist version it was loaded under and only returned for
+ * that version, so any change that bumps the version hides it, whether or not the change
+ * evicted it. Entries are never patched and must expire on their own.
+ */
+public interface WatchlistCacheTier {
+
+    /**
+     * The list stored for the user under this watchlist version, else null.
+     */
+    List<MovieDTO> get(Long userId, long version);
+
+    void put(Long userId, long version, List<MovieDTO> movies);
+
+    void evict(Long userId);
+}
@@ -0,0 +1,69 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.config.PrimaryStickiness;
+import com.sb.main.server.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.StringJoiner;
+
+/**
+ * Versions behind the watchlist ETags and the {@link WatchlistCache}.
+ * <p>
+ * A user's watchlist version is the users.watchlist_version column, bumped by every change
+ * to the list in the transaction that makes it. Every node reads the same value, so a change
+ * made on one invalidates ETags and cached lists on all of them, at the price of one primary
+ * key lookup per conditional GET. Single movies use their @Version column instead.
+ * <p>
+ * The ETags are weak: they name the data, while the bytes also depend on the negotiated
+ * encoding and compression. Tomcat only compresses responses with a weak ETag.
+ */
+@Service
+@RequiredArgsConstructor
+public class WatchlistVersionService {
+
+    private final PrimaryStickiness primaryStickiness;
+    private final UserRepository userRepository;
+
+    private static final Base64.Encoder VIEW_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    public String watchlistEtag(String email, Object... view) {
+        long version = watchlistVersion(email);
+        // Filtered views of the same list, and the facets derived from it, must not share an ETag
+        return "W/\"w" + version + "-" + encodeView(view) + "\"";
+    }
+
+    public String movieEtag(Long id, long version) {
+        return "W/\"m" + id + "-" + version + "\"";
+    }
+
+    public long watchlistVersion(String email) {
+        return userRepository.findWatchlistVersionByEmail(email).orElse(0L);
+    }
+
+    /**
+     * Bumps the user's watchlist version and returns the new one. Call it inside the
+     * transaction that changes the list: the row lock taken here orders concurrent changes,
+     * and no reader sees the new version before the change is committed.
+     */
+    @Transactional
+    public long watchlistChanged(String email) {
+        // Before the bump: whoever sees the new version must not read the list from a lagging replica
+        primaryStickiness.wrote();
+        userRepository.bumpWatchlistVersion(email);
+        return watchlistVersion(email);
+    }
+
+    // Each value URL-safe Base64 encoded and joined with '.', null as '~': neither character is in the
+    // alphabet, so two different views never encode the same, and the result is valid inside an ETag
+    private static String encodeView(Object... view) {
+        StringJoiner encoded = new StringJoiner(".");
+        for (Object value : view) {
+            encoded.add(value == null ? "~" : VIEW_ENCODER.encodeToString(value.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+        return encoded.toString();
+    }
+}
@@ -0,0 +1,140 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Fills in genre_mask and genre_counts for the movies that existed before V5. Runs in Java
+ * because the parsing cannot be expressed in SQL.
+ * <p>
+ * The parsing is a copy of Genre.maskOf and its names as they were when this migration was
+ * written: a migration must do the same on every database whenever it runs, while Genre keeps
+ * gaining aliases. Leave it as it is.
+ */
+public class V6__Backfill_genre_masks extends BaseJavaMigration {
+
+    private static final int PAGE_SIZE = 1000;
+
+    // Indexed by bit: the label first, then the aliases
+    private static final String[][] GENRES = {
+            {"Action"},
+            {"Adventure"},
+            {"Animation", "animated", "anime", "cartoon"},
+            {"Comedy", "comedies"},
+            {"Crime", "heist", "noir"},
+            {"Documentary", "docu", "documentaries"},
+            {"Drama", "dramas"},
+            {"Family", "kids", "children"},
+            {"Fantasy"},
+            {"History", "historical", "period"},
+            {"Horror", "slasher"},
+            {"Music", "concert"},
+            {"Mystery", "whodunit"},
+            {"Romance", "romantic"},
+            {"Science Fiction", "sci fi", "scifi", "sf"},
+            {"Thriller", "suspense"},
+            {"War"},
+            {"Western"},
+            {"TV Movie"},
+            {"Biography", "biopic", "biographical"},
+            {"Musical"},
+            {"Sport", "sports"},
+    };
+    private static final Map<String, Integer> BITS = new HashMap<>();
+
+    static {
+        for (int bit = 0; bit < GENRES.length; bit++) {
+            for (String name : GENRES[bit]) {
+                BITS.put(normalize(name), bit);
+            }
+        }
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        Map<Long, int[]> counts = new HashMap<>();
+
+        // Keyset pages instead of one streaming result set, which would keep the connection
+        // busy and rule out the updates in between
+        try (PreparedStatement select = connection.prepareStatement(
+                "select id, user_id, genre from movies where id > ? and genre is not null order by id limit " + PAGE_SIZE);
+             PreparedStatement update = connection.prepareStatement("update movies set genre_mask = ? where id = ?")) {
+            long afterId = 0;
+            int read;
+            do {
+                select.setLong(1, afterId);
+                read = 0;
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        read++;
+                        afterId = rows.getLong(1);
+                        long mask = maskOf(rows.getString(3));
+                        if (mask == 0) {
+                            continue;
+                        }
+                        update.setLong(1, mask);
+                        update.setLong(2, afterId);
+                        update.addBatch();
+
+                        long userId = rows.getLong(2);
+                        if (!rows.wasNull()) {
+                            int[] userCounts = counts.computeIfAbsent(userId, id -> new int[Long.SIZE]);
+                            for (long rest = mask; rest != 0; rest &= rest - 1) {
+                                userCounts[Long.numberOfTrailingZeros(rest)]++;
+                            }
+                        }
+                    }
+                }
+                update.executeBatch();
+            } while (read == PAGE_SIZE);
+        }
+
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into genre_counts (user_id, genre, movie_count) values (?, ?, ?)")) {
+            for (Map.Entry<Long, int[]> user : counts.entrySet()) {
+                int[] userCounts = user.getValue();
+                for (int bit = 0; bit < userCounts.length; bit++) {
+                    if (userCounts[bit] > 0) {
+                        insert.setLong(1, user.getKey());
+                        insert.setInt(2, bit);
+                        insert.setInt(3, userCounts[bit]);
+                        insert.addBatch();
+                    }
+                }
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private static long maskOf(String text) {
+        if (text == null || text.isBlank()) {
+            return 0L;
+        }
+        long mask = 0L;
+        for (String part : text.split("(?i)[,/|&;+]|\\band\\b")) {
+            Integer bit = BITS.get(normalize(part));
+            if (bit != null) {
+                mask |= 1L << bit;
+            } else {
+                for (String word : part.trim().split("\\s+")) {
+                    Integer single = BITS.get(normalize(word));
+                    mask |= single == null ? 0L : 1L << single;
+                }
+            }
+        }
+        return mask;
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT).replaceAll("[\\s_-]+", " ");
+    }
+}
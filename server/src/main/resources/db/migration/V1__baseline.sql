@@ -0,0 +1,24 @@
+-- Schema as Hibernate's ddl-auto=update left it before the schema moved to Flyway. Databases created
+-- that way are baselined at this version (spring.flyway.baseline-on-migrate) and skip this script,
+-- so it must not hold anything they lack: later tables, columns and indexes go in V2 and up.
+
+create table users (
+    id bigint not null auto_increment,
+    email varchar(255),
+    password varchar(255),
+    username varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table movies (
+    id bigint not null auto_increment,
+    description varchar(255),
+    genre varchar(255),
+    link varchar(255),
+    name varchar(255),
+    poster_url varchar(255),
+    user_id bigint,
+    primary key (id)
+) engine=InnoDB;
+
+alter table movies add constraint FKtfuo09vaplh15krjjrakmvva7 foreign key (user_id) references users (id);
@@ -0,0 +1,33 @@
+-- One account per email; register relies on this to reject a second sign-up. Fails on a database
+-- that already holds duplicate emails, which have to be merged or removed by hand first.
+alter table users add constraint uk_users_email unique (email);
+
+-- Bumped on every update, the basis of the single-movie ETag
+alter table movies add column version bigint default 0 not null;
+
+-- Posters are uploaded in the background, with resized variants. Posters stored before that were
+-- uploaded during the request, so a row with a poster_url has a finished one.
+alter table movies add column poster_thumb_url varchar(255);
+alter table movies add column poster_medium_url varchar(255);
+alter table movies add column poster_status enum ('FAILED','NONE','PENDING','READY') default 'NONE';
+update movies set poster_status = 'READY' where poster_url is not null;
+
+-- Movie ids used to come from AUTO_INCREMENT and now come from the pooled movies_seq generator.
+-- Hibernate reads next_val as the top of the next block of allocationSize (50) ids and hands out
+-- next_val - 49 to next_val, so it starts allocationSize past the ids already in use.
+create table movies_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into movies_seq select coalesce(max(id), 0) + 50 from movies;
+
+-- Lowercased genre kept by the database itself, so genre filters compare against an indexed
+-- column instead of wrapping every row in lower(). Virtual: adding it does not rewrite the
+-- table, InnoDB stores the values in the index only.
+alter table movies add column genre_key varchar(255) generated always as (lower(genre));
+
+-- Genre filter within one user's watchlist
+create index idx_movies_user_genre on movies (user_id, genre_key);
+
+-- Keyset pages and full watchlist loads, in id order
+create index idx_movies_user_id on movies (user_id, id);
@@ -0,0 +1,7 @@
+-- Shared rate limit state for JdbcSharedRateLimiter: per key, the epoch millis at which the
+-- bucket is full again. Rows past that time carry no information and are deleted periodically.
+create table rate_limit_buckets (
+    bucket_key varchar(255) not null,
+    full_at bigint not null,
+    primary key (bucket_key)
+) engine=InnoDB;
@@ -0,0 +1,16 @@
+-- Tokens carry the generation they were issued under; bumping it signs the user out everywhere.
+alter table users add column token_generation bigint default 0 not null;
+
+-- Signed-out sessions and generation bumps, polled by every node (see TokenRevocationService).
+-- A row is useless once every token it can apply to has expired, and is then deleted.
+create table token_revocations (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    session_id varchar(64),
+    generation bigint,
+    created_at bigint not null,
+    expires_at bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_token_revocations_created_at on token_revocations (created_at);
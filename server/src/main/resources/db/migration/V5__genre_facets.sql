@@ -0,0 +1,12 @@
+-- The genres read out of the free-text genre, one bit per Genre. Existing rows are filled in
+-- by V6, new ones by the application on every write.
+alter table movies add column genre_mask bigint default 0 not null;
+
+-- Movies per genre in each user's watchlist, behind GET /api/movies/facets. Changed in the same
+-- transaction as the movies themselves (see GenreFacetService); genre is Genre.bit().
+create table genre_counts (
+    user_id bigint not null,
+    genre tinyint not null,
+    movie_count int not null,
+    primary key (user_id, genre)
+) engine=InnoDB;
@@ -0,0 +1,14 @@
+-- Watchlist entries per title across all users, behind GET /api/leaderboard. Counted in memory and
+-- added here in batches by every node (see LeaderboardService). title is the normalized name, genre
+-- a Genre bit or -1 for all genres, added_hour the hour since the epoch the entries were added in, or 0
+-- for the all-time count; updated_at (epoch millis) lets nodes pick up each other's additions.
+create table title_counts (
+    title varchar(255) not null,
+    genre tinyint not null,
+    added_hour bigint not null,
+    movie_count bigint not null,
+    updated_at bigint not null,
+    primary key (title, genre, added_hour)
+) engine=InnoDB;
+
+create index idx_title_counts_updated_at on title_counts (updated_at);
@@ -0,0 +1,3 @@
+-- Bumped in the same transaction as every change to the user's watchlist, behind the watchlist
+-- ETags and cache (see WatchlistVersionService). Kept here so every node sees a change made on any other.
+alter table users add column watchlist_version bigint default 0 not null;
@@ -0,0 +1,5 @@
+-- When the poster upload was queued, epoch millis. Uploads only live in the memory of the node that
+-- queued them, so a poster still PENDING long after this lost its upload (see PosterUploadService).
+alter table movies add column poster_pending_since bigint;
+
+create index idx_movies_poster_pending on movies (poster_status, poster_pending_since);
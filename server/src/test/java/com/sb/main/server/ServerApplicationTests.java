@@ -2,12 +2,14 @@ package com.sb.main.server;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
-//@SpringBootTest
-//class ServerApplicationTests {
-//
-//	@Test
-//	void contextLoads() {
-//	}
-//
-//}
+@SpringBootTest
+@ActiveProfiles("test")
+class ServerApplicationTests {
+
+	@Test
+	void contextLoads() {
+	}
+
+}
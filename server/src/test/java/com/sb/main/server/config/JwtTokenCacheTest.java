@@ -0,0 +1,68 @@
+package com.sb.main.server.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtTokenCacheTest {
+
+    private final JwtTokenCache cache = new JwtTokenCache();
+
+    @BeforeEach
+    void configure() {
+        ReflectionTestUtils.setField(cache, "maxSize", 10);
+    }
+
+    @Test
+    void aVerifiedTokenIsServedUntilItExpires() {
+        JwtTokenCache.CachedToken live = cached(1L, System.currentTimeMillis() + 60_000);
+        cache.put("live", live);
+        cache.put("expired", cached(1L, System.currentTimeMillis() - 1));
+
+        assertThat(cache.get("live")).isSameAs(live);
+        assertThat(cache.get("unknown")).isNull();
+        assertThat(cache.get("expired")).isNull();
+        // An expired token is dropped when it is looked up
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void changingAUserDropsOnlyTheirTokens() {
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        cache.put("first", cached(1L, expiresAt));
+        cache.put("second", cached(1L, expiresAt));
+        cache.put("other", cached(2L, expiresAt));
+
+        cache.invalidateUser(1L);
+
+        assertThat(cache.get("first")).isNull();
+        assertThat(cache.get("second")).isNull();
+        assertThat(cache.get("other")).isNotNull();
+    }
+
+    @Test
+    void aFullCacheDropsExpiredTokensBeforeLiveOnes() {
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        IntStream.range(0, 5).forEach(i -> cache.put("expired" + i, cached(1L, System.currentTimeMillis() - 1)));
+        IntStream.range(0, 5).forEach(i -> cache.put("live" + i, cached(1L, expiresAt)));
+
+        cache.put("one more", cached(1L, expiresAt));
+
+        assertThat(cache.size()).isEqualTo(6);
+        IntStream.range(0, 5).forEach(i -> assertThat(cache.get("live" + i)).isNotNull());
+
+        // Full of live tokens, a tenth of them goes
+        IntStream.range(0, 4).forEach(i -> cache.put("more" + i, cached(1L, expiresAt)));
+        cache.put("last", cached(1L, expiresAt));
+        assertThat(cache.size()).isEqualTo(10);
+        assertThat(cache.get("last")).isNotNull();
+    }
+
+    private static JwtTokenCache.CachedToken cached(Long userId, long expiresAt) {
+        return new JwtTokenCache.CachedToken("user" + userId + "@x.io", userId, 0L, "session", expiresAt);
+    }
+}
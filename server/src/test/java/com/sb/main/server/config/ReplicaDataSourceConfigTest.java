@@ -0,0 +1,128 @@
+package com.sb.main.server.config;
+
+import com.sb.main.server.dto.GenreFacet;
+import com.sb.main.server.dto.MovieDTO;
+import com.sb.main.server.entity.Genre;
+import com.sb.main.server.service.MovieService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routing between two embedded databases standing in for the primary and a replica. The same
+ * rows are written to both with different names, so every read shows where it went.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaDataSourceConfigTest.PRIMARY_URL,
+        "datasource.replica.urls=" + ReplicaDataSourceConfigTest.REPLICA_URL
+})
+@ActiveProfiles("test")
+class ReplicaDataSourceConfigTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    static {
+        // The application migrates the primary; on a real replica replication creates the schema
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+    }
+
+    @Autowired
+    private MovieService movieService;
+
+    @AfterEach
+    void endRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyServiceMethodsReadFromTheReplica() {
+        String email = "reader@x.io";
+        long userId = insertUser(1001, email);
+        insertMovie(2001, userId);
+        primary.update("insert into genre_counts (user_id, genre, movie_count) values (?, ?, 1)", userId, Genre.COMEDY.bit());
+        replica.update("insert into genre_counts (user_id, genre, movie_count) values (?, ?, 7)", userId, Genre.COMEDY.bit());
+
+        assertThat(movieService.getMovieById(2001L, email).getName()).isEqualTo("replica copy");
+        assertThat(movieService.getUserMovies(email, null, null, null, true))
+                .extracting(MovieDTO::getName).containsExactly("replica copy");
+        assertThat(movieService.getGenreFacets(email)).extracting(GenreFacet::getCount).containsExactly(7);
+    }
+
+    @Test
+    void clientWhoJustWroteReadsFromThePrimary() {
+        String email = "writer@x.io";
+        long userId = insertUser(1002, email);
+        insertMovie(2002, userId);
+        // Told by whichever node took the write
+        startRequest().addHeader(PrimaryStickiness.HEADER, System.currentTimeMillis() + 3_000);
+
+        assertThat(movieService.getMovieById(2002L, email).getName()).isEqualTo("primary copy");
+        assertThat(movieService.getUserMovies(email, null, null, null, true))
+                .extracting(MovieDTO::getName).containsExactly("primary copy");
+    }
+
+    @Test
+    void stickinessFurtherOutThanOneWindowIsIgnored() {
+        String email = "forger@x.io";
+        long userId = insertUser(1004, email);
+        insertMovie(2004, userId);
+        startRequest().addHeader(PrimaryStickiness.HEADER, System.currentTimeMillis() + 3_600_000);
+
+        assertThat(movieService.getMovieById(2004L, email).getName()).isEqualTo("replica copy");
+    }
+
+    @Test
+    void writesGoToThePrimaryAndTellTheClientToStick() throws Exception {
+        String email = "adder@x.io";
+        insertUser(1003, email);
+        startRequest();
+
+        MovieDTO saved = movieService.addMovie(email, "Added", "", null, "Drama", null);
+
+        assertThat(primary.queryForObject("select count(*) from movies where id = ?", Integer.class, saved.getId())).isEqualTo(1);
+        assertThat(replica.queryForObject("select count(*) from movies where id = ?", Integer.class, saved.getId())).isZero();
+        long until = Long.parseLong(response().getHeader(PrimaryStickiness.HEADER));
+        assertThat(until).isGreaterThan(System.currentTimeMillis());
+        // The rest of the request reads its own write too
+        assertThat(movieService.getUserMovies(email, null, null, null, true))
+                .extracting(MovieDTO::getName).containsExactly("Added");
+    }
+
+    private static MockHttpServletRequest startRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, new MockHttpServletResponse()));
+        return request;
+    }
+
+    private static MockHttpServletResponse response() {
+        return (MockHttpServletResponse) ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getResponse();
+    }
+
+    private static long insertUser(long id, String email) {
+        for (JdbcTemplate database : new JdbcTemplate[]{primary, replica}) {
+            database.update("insert into users (id, email, password, username) values (?, ?, 'unused', ?)", id, email, email);
+        }
+        return id;
+    }
+
+    private static void insertMovie(long id, long userId) {
+        String sql = "insert into movies (id, user_id, name, genre, genre_mask) values (?, ?, ?, 'Comedy', ?)";
+        primary.update(sql, id, userId, "primary copy", Genre.COMEDY.mask());
+        replica.update(sql, id, userId, "replica copy", Genre.COMEDY.mask());
+    }
+}
@@ -0,0 +1,73 @@
+package com.sb.main.server.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GenreTest {
+
+    @Test
+    void genresAreReadFromTheUsualSeparators() {
+        long mask = Genre.SCIENCE_FICTION.mask() | Genre.DRAMA.mask();
+
+        assertThat(Genre.maskOf("Science Fiction, Drama")).isEqualTo(mask);
+        assertThat(Genre.maskOf("Science Fiction / Drama")).isEqualTo(mask);
+        assertThat(Genre.maskOf("Science Fiction|Drama")).isEqualTo(mask);
+        assertThat(Genre.maskOf("Science Fiction & Drama")).isEqualTo(mask);
+        assertThat(Genre.maskOf("Science Fiction; Drama")).isEqualTo(mask);
+        assertThat(Genre.maskOf("Science Fiction + Drama")).isEqualTo(mask);
+        assertThat(Genre.maskOf("Science Fiction AND Drama")).isEqualTo(mask);
+    }
+
+    @Test
+    void namesMatchTheirLabelConstantOrAliasInAnySpelling() {
+        assertThat(Genre.maskOf("Sci-Fi")).isEqualTo(Genre.SCIENCE_FICTION.mask());
+        assertThat(Genre.maskOf(" SCI_FI ")).isEqualTo(Genre.SCIENCE_FICTION.mask());
+        assertThat(Genre.maskOf("science_fiction")).isEqualTo(Genre.SCIENCE_FICTION.mask());
+        assertThat(Genre.maskOf("tv-movie")).isEqualTo(Genre.TV_MOVIE.mask());
+        assertThat(Genre.maskOf("anime")).isEqualTo(Genre.ANIMATION.mask());
+        assertThat(Genre.maskOf("Biopic")).isEqualTo(Genre.BIOGRAPHY.mask());
+        assertThat(Genre.find("whodunit")).isEqualTo(Genre.MYSTERY);
+        assertThat(Genre.find("Mockumentary")).isNull();
+    }
+
+    @Test
+    void partsNamingNoGenreAreTriedWordByWord() {
+        assertThat(Genre.maskOf("Action Comedy")).isEqualTo(Genre.ACTION.mask() | Genre.COMEDY.mask());
+        // Two-word names still match as a whole before their words are tried
+        assertThat(Genre.maskOf("Science Fiction")).isEqualTo(Genre.SCIENCE_FICTION.mask());
+        assertThat(Genre.maskOf("Dark Romantic Comedy")).isEqualTo(Genre.ROMANCE.mask() | Genre.COMEDY.mask());
+    }
+
+    @Test
+    void unknownGenresAreLeftOut() {
+        assertThat(Genre.maskOf("Mockumentary, Horror")).isEqualTo(Genre.HORROR.mask());
+        assertThat(Genre.maskOf("Mockumentary")).isZero();
+        // "and" only separates as a word
+        assertThat(Genre.maskOf("Bandit Western")).isEqualTo(Genre.WESTERN.mask());
+        assertThat(Genre.maskOf("")).isZero();
+        assertThat(Genre.maskOf(" ")).isZero();
+        assertThat(Genre.maskOf(null)).isZero();
+    }
+
+    @Test
+    void masksListTheirGenresInBitOrder() {
+        long mask = Genre.maskOf("Western, Action, Drama");
+
+        assertThat(Genre.fromMask(mask)).containsExactly(Genre.ACTION, Genre.DRAMA, Genre.WESTERN);
+        // A bit no genre uses is skipped
+        assertThat(Genre.fromMask(mask | 1L << 63)).containsExactly(Genre.ACTION, Genre.DRAMA, Genre.WESTERN);
+        assertThat(Genre.fromMask(0L)).isEmpty();
+    }
+
+    @Test
+    void bitsAreUniqueAndStable() {
+        // Persisted in movies.genre_mask and genre_counts: a changed bit silently relabels stored rows
+        assertThat(Genre.ACTION.bit()).isZero();
+        assertThat(Genre.SCIENCE_FICTION.bit()).isEqualTo(14);
+        assertThat(Genre.SPORT.bit()).isEqualTo(21);
+        for (Genre genre : Genre.values()) {
+            assertThat(Genre.fromBit(genre.bit())).isEqualTo(genre);
+        }
+    }
+}
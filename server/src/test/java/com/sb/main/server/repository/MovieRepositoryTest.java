@@ -0,0 +1,69 @@
+package com.sb.main.server.repository;
+
+import com.sb.main.server.dto.MovieDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class MovieRepositoryTest {
+
+    private static final String EMAIL = "like@x.io";
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void insertMovies() {
+        jdbcTemplate.update("insert into users (id, email, password, username) values (3001, ?, 'unused', 'like')", EMAIL);
+        String[] names = {"100% Wolf", "1000 Wolves", "snake_case", "snakescase", "back\\slash", "backslash", "Wow!"};
+        for (int i = 0; i < names.length; i++) {
+            jdbcTemplate.update("insert into movies (id, user_id, name, genre) values (?, 3001, ?, 'Drama')", 4001 + i, names[i]);
+        }
+    }
+
+    // Contexts started later share the database, and rebuild the search index from it
+    @AfterEach
+    void deleteMovies() {
+        jdbcTemplate.update("delete from movies where user_id = 3001");
+        jdbcTemplate.update("delete from users where id = 3001");
+    }
+
+    @Test
+    void nameWildcardsMatchThemselves() {
+        assertThat(names("0% w")).containsExactly("100% Wolf");
+        assertThat(names("E_C")).containsExactly("snake_case");
+        assertThat(names("k\\s")).containsExactly("back\\slash");
+        assertThat(names("%")).containsExactly("100% Wolf");
+        assertThat(names("w!")).containsExactly("Wow!");
+    }
+
+    @Test
+    void nameAndGenreWildcardsMatchThemselves() {
+        assertThat(movieRepository.findByUserEmailAndNameContainingIgnoreCaseAndGenreIgnoreCase(EMAIL, "_", "drama"))
+                .extracting(MovieDTO::getName).containsExactly("snake_case");
+    }
+
+    @Test
+    void nameSearchFallbackStopsAtTheLimit() {
+        assertThat(movieRepository.findByUserEmailAndNameContainingIgnoreCase(EMAIL, "w", Limit.of(2)))
+                .extracting(MovieDTO::getName).containsExactly("100% Wolf", "1000 Wolves");
+    }
+
+    private List<String> names(String name) {
+        return movieRepository.findByUserEmailAndNameContainingIgnoreCase(EMAIL, name).stream().map(MovieDTO::getName).toList();
+    }
+}
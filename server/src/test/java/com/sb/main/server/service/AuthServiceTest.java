@@ -0,0 +1,239 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.config.JwtUtils;
+import com.sb.main.server.dto.AuthRequest;
+import com.sb.main.server.dto.AuthResponse;
+import com.sb.main.server.dto.PasswordChangeRequest;
+import com.sb.main.server.dto.RegisterRequest;
+import com.sb.main.server.exception.ServiceOverloadedException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Registration, sign-in on the hashing pool, refresh and the three ways of signing out.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AuthServiceTest {
+
+    private static final String EMAIL = "auth@x.io";
+    private static final String PASSWORD = "correct horse";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private TokenRevocationService revocationService;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void register() {
+        RegisterRequest request = new RegisterRequest();
+        request.setUsername("auth");
+        request.setEmail(EMAIL);
+        request.setPassword(PASSWORD);
+        authService.register(request);
+    }
+
+    // Contexts started later share the database, and load the revocations from it
+    @AfterEach
+    void deleteUser() {
+        jdbcTemplate.update("delete from token_revocations where user_id = (select id from users where email = ?)", EMAIL);
+        jdbcTemplate.update("delete from users where email = ?", EMAIL);
+    }
+
+    @Test
+    void anEmailRegistersOnce() {
+        RegisterRequest again = new RegisterRequest();
+        again.setUsername("someone else");
+        again.setEmail(EMAIL);
+        again.setPassword("another password");
+
+        assertThatThrownBy(() -> authService.register(again)).hasMessage("Email already in use");
+        assertThat(jdbcTemplate.queryForObject("select count(*) from users where email = ?", Integer.class, EMAIL)).isEqualTo(1);
+        assertThat(login(PASSWORD).getToken()).isNotNull();
+    }
+
+    @Test
+    void loginRehashesAPasswordHashedWithALowerCost() throws Exception {
+        String weak = new BCryptPasswordEncoder(4).encode(PASSWORD);
+        jdbcTemplate.update("update users set password = ? where email = ?", weak, EMAIL);
+
+        login(PASSWORD);
+
+        // The new hash is written in the background, after the response
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (storedHash().equals(weak) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(storedHash()).isNotEqualTo(weak);
+        assertThat(passwordHasher.needsRehash(storedHash())).isFalse();
+        assertThat(login(PASSWORD).getToken()).isNotNull();
+    }
+
+    @Test
+    void loginIsTurnedAwayWhileHashingIsSaturated() throws Exception {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(passwordHasher, "executor");
+        int threads = executor.getMaximumPoolSize();
+        CountDownLatch busy = new CountDownLatch(threads);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < threads; i++) {
+                executor.execute(() -> {
+                    busy.countDown();
+                    awaitQuietly(release);
+                });
+            }
+            // Only once every thread holds a task does the queue stay full
+            assertThat(busy.await(10, TimeUnit.SECONDS)).isTrue();
+            while (executor.getQueue().remainingCapacity() > 0) {
+                executor.execute(() -> awaitQuietly(release));
+            }
+
+            mockMvc.perform(post("/api/auth/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"email\":\"" + EMAIL + "\",\"password\":\"" + PASSWORD + "\"}"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+        } finally {
+            release.countDown();
+        }
+        assertThat(login(PASSWORD).getToken()).isNotNull();
+    }
+
+    @Test
+    void refreshIssuesAnAccessTokenForTheSameSession() {
+        AuthResponse login = login(PASSWORD);
+
+        AuthResponse refreshed = authService.refresh(login.getRefreshToken());
+
+        assertThat(refreshed.getRefreshToken()).isEqualTo(login.getRefreshToken());
+        assertThat(sessionOf(refreshed.getToken())).isEqualTo(sessionOf(login.getToken()));
+        // An access token cannot stand in for the refresh token
+        assertThatThrownBy(() -> authService.refresh(login.getToken())).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void logoutRevokesOnlyThatSession() {
+        AuthResponse first = login(PASSWORD);
+        AuthResponse second = login(PASSWORD);
+
+        authService.logout(first.getToken());
+
+        assertThatThrownBy(() -> authService.refresh(first.getRefreshToken())).isInstanceOf(JwtException.class);
+        assertThat(isRevoked(first.getToken())).isTrue();
+        assertThat(authService.refresh(second.getRefreshToken()).getToken()).isNotNull();
+        assertThat(isRevoked(second.getToken())).isFalse();
+    }
+
+    @Test
+    void logoutEverywhereRevokesEverySessionSoFar() {
+        AuthResponse first = login(PASSWORD);
+        AuthResponse second = login(PASSWORD);
+
+        authService.logoutEverywhere(EMAIL);
+
+        assertThatThrownBy(() -> authService.refresh(first.getRefreshToken())).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> authService.refresh(second.getRefreshToken())).isInstanceOf(JwtException.class);
+        AuthResponse next = login(PASSWORD);
+        assertThat(isRevoked(next.getToken())).isFalse();
+        assertThat(authService.refresh(next.getRefreshToken()).getToken()).isNotNull();
+    }
+
+    @Test
+    void passwordChangeKeepsOnlyTheReturnedSession() {
+        AuthResponse before = login(PASSWORD);
+        PasswordChangeRequest change = new PasswordChangeRequest();
+        change.setCurrentPassword(PASSWORD);
+        change.setNewPassword("battery staple");
+
+        AuthResponse after = authService.changePassword(EMAIL, change);
+
+        assertThatThrownBy(() -> authService.refresh(before.getRefreshToken())).isInstanceOf(JwtException.class);
+        assertThat(isRevoked(after.getToken())).isFalse();
+        assertThatThrownBy(() -> login(PASSWORD)).hasMessage("Invalid credentials");
+        assertThat(login("battery staple").getToken()).isNotNull();
+    }
+
+    @Test
+    void signedInRequestsWaitForTheRevocationsToLoad() throws Exception {
+        String token = login(PASSWORD).getToken();
+        ReflectionTestUtils.setField(revocationService, "loaded", false);
+        try {
+            mockMvc.perform(get("/api/movies").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+            assertThatThrownBy(() -> authService.refresh(login(PASSWORD).getRefreshToken()))
+                    .isInstanceOf(ServiceOverloadedException.class);
+            mockMvc.perform(get("/actuator/health/readiness")).andExpect(status().isServiceUnavailable());
+        } finally {
+            revocationService.poll();
+        }
+        mockMvc.perform(get("/api/movies").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/health/readiness")).andExpect(status().isOk());
+    }
+
+    private AuthResponse login(String password) {
+        AuthRequest request = new AuthRequest();
+        request.setEmail(EMAIL);
+        request.setPassword(password);
+        return authService.login(request);
+    }
+
+    private String storedHash() {
+        return jdbcTemplate.queryForObject("select password from users where email = ?", String.class, EMAIL);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private JwtUtils.Session sessionOf(String accessToken) {
+        return JwtUtils.session(jwtUtils.parseClaims(accessToken), JwtUtils.ACCESS);
+    }
+
+    private boolean isRevoked(String accessToken) {
+        JwtUtils.Session session = sessionOf(accessToken);
+        return revocationService.isRevoked(session.userId(), session.generation(), session.sessionId());
+    }
+}
@@ -0,0 +1,207 @@
+package com.sb.main.server.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The catalog proxy against a stub TMDB server that records every request it gets. Each
+ * response body names the request and how many of its kind came before, so a test can tell
+ * a cached copy from a fresh one.
+ */
+@SpringBootTest(properties = "catalog.ttl.details=PT0.3S")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CatalogServiceTest {
+
+    private static final List<String> requests = new CopyOnWriteArrayList<>();
+    // Requests for /3/movie/... wait for this before they are answered
+    private static volatile CountDownLatch detailsGate = new CountDownLatch(0);
+    private static final HttpServer tmdb = startTmdb();
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void tmdbUrl(DynamicPropertyRegistry registry) {
+        registry.add("tmdb.api.url", () -> "http://localhost:" + tmdb.getAddress().getPort() + "/3");
+    }
+
+    @AfterAll
+    static void stopTmdb() {
+        tmdb.stop(0);
+    }
+
+    @BeforeEach
+    void clearRequests() {
+        detailsGate = new CountDownLatch(0);
+        requests.clear();
+    }
+
+    @Test
+    void concurrentMissesShareOneUpstreamCall() throws Exception {
+        int callers = 16;
+        detailsGate = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(callers);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> bodies = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                bodies.add(pool.submit(() -> {
+                    started.countDown();
+                    return body(catalogService.fetch("/movie/101", Map.of()));
+                }));
+            }
+            started.await();
+            // Let every caller reach the cache while the first fetch is still held upstream
+            Thread.sleep(300);
+            detailsGate.countDown();
+
+            for (Future<String> body : bodies) {
+                assertThat(body.get(5, TimeUnit.SECONDS)).isEqualTo("/3/movie/101 #1");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(requests).containsExactly("/3/movie/101");
+    }
+
+    @Test
+    void expiredEntryIsServedWhileItIsRefreshed() throws Exception {
+        assertThat(body(catalogService.fetch("/movie/202", Map.of()))).isEqualTo("/3/movie/202 #1");
+        Thread.sleep(400);
+        detailsGate = new CountDownLatch(1);
+
+        // Past its TTL: the old copy comes back at once, the refresh waits upstream
+        long start = System.nanoTime();
+        assertThat(body(catalogService.fetch("/movie/202", Map.of()))).isEqualTo("/3/movie/202 #1");
+        assertThat(body(catalogService.fetch("/movie/202", Map.of()))).isEqualTo("/3/movie/202 #1");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(250);
+
+        detailsGate.countDown();
+        long deadline = System.currentTimeMillis() + 5_000;
+        String body;
+        do {
+            Thread.sleep(20);
+            body = body(catalogService.fetch("/movie/202", Map.of()));
+        } while (!body.endsWith("#2") && System.currentTimeMillis() < deadline);
+        assertThat(body).isEqualTo("/3/movie/202 #2");
+        // One refresh, however many stale reads there were
+        assertThat(requests).containsExactly("/3/movie/202", "/3/movie/202");
+    }
+
+    @Test
+    void snapshotsAnswerTheRequestsTheClientSends() throws Exception {
+        // Disabled for the test profile, so that no refresh on start calls the stub during other tests
+        ReflectionTestUtils.setField(catalogSnapshotService, "enabled", true);
+        try {
+            catalogSnapshotService.refresh();
+        } finally {
+            ReflectionTestUtils.setField(catalogSnapshotService, "enabled", false);
+        }
+        assertThat(requests).contains("/3/discover/movie?with_genres=28", "/3/discover/tv?with_original_language=te");
+        requests.clear();
+
+        // As client/src/services/tmdb.js asks for the Home and browse lists
+        for (String mediaType : List.of("movie", "tv")) {
+            String genre = mediaType.equals("movie") ? "28" : "10759";
+            expectSnapshot("/api/catalog/trending/" + mediaType + "/week");
+            expectSnapshot("/api/catalog/" + mediaType + "/popular");
+            expectSnapshot("/api/catalog/genre/" + mediaType + "/list");
+            expectSnapshot("/api/catalog/discover/" + mediaType + "?with_genres=" + genre);
+            for (String language : List.of("en", "hi", "te")) {
+                expectSnapshot("/api/catalog/discover/" + mediaType + "?with_original_language=" + language);
+            }
+        }
+        expectSnapshot("/api/catalog/configuration/languages");
+
+        assertThat(requests).isEmpty();
+    }
+
+    private void expectSnapshot(String url) throws Exception {
+        mockMvc.perform(get(url).header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+    }
+
+    private static String body(CatalogService.CatalogResponse response) {
+        return new String(response.body(), StandardCharsets.UTF_8);
+    }
+
+    private static HttpServer startTmdb() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.createContext("/3", CatalogServiceTest::answer);
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void answer(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        // The key is appended last and is blank here
+        String query = exchange.getRequestURI().getQuery().replaceFirst("&?api_key=$", "");
+        String request = query.isEmpty() ? path : path + "?" + query;
+        long earlier = requests.stream().filter(request::equals).count();
+        requests.add(request);
+        try {
+            if (path.startsWith("/3/movie/")) {
+                detailsGate.await(5, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        String body;
+        if (path.equals("/3/genre/movie/list")) {
+            body = "{\"genres\":[{\"id\":28,\"name\":\"Action\"}]}";
+        } else if (path.equals("/3/genre/tv/list")) {
+            body = "{\"genres\":[{\"id\":10759,\"name\":\"Action & Adventure\"}]}";
+        } else {
+            body = request + " #" + (earlier + 1);
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
@@ -0,0 +1,148 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.dto.Recommendation;
+import com.sb.main.server.entity.Genre;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CooccurrenceModelTest {
+
+    private record Row(long movieId, long userId, String name, long genreMask) {
+    }
+
+    @Test
+    void onlyEntriesWithinTheWindowCoOccur() {
+        List<Row> rows = List.of(row(1, 1, "Alien"), row(2, 1, "Heat"), row(3, 1, "Ran"));
+
+        for (CooccurrenceModel model : List.of(built(1, 1, rows), added(1, 1, rows))) {
+            assertThat(titles(model.similar("Alien", 0, 10))).containsExactly("Heat");
+            assertThat(titles(model.similar("Heat", 0, 10))).containsExactlyInAnyOrder("Alien", "Ran");
+        }
+    }
+
+    @Test
+    void titlesOnTooFewWatchlistsAreNotSuggested() {
+        List<Row> rows = List.of(
+                row(1, 1, "Alien"), row(2, 1, "Heat"),
+                row(3, 2, "Alien"), row(4, 2, "Ran"),
+                row(5, 3, "Alien"), row(6, 3, "Ran"));
+
+        for (CooccurrenceModel model : List.of(built(10, 2, rows), added(10, 2, rows))) {
+            assertThat(titles(model.similar("Alien", 0, 10))).containsExactly("Ran");
+            assertThat(titles(model.recommend(2, 10, 50))).isEmpty();
+        }
+    }
+
+    @Test
+    void similarRanksByCosineSimilarity() {
+        long drama = Genre.DRAMA.mask();
+        List<Row> rows = List.of(
+                row(1, 1, "The Matrix (1999)"), row(2, 1, "Heat"),
+                row(3, 2, "matrix"), row(4, 2, "Heat"), row(5, 2, "Matrix", drama),
+                row(6, 3, "MATRIX"), row(7, 3, "Ran"));
+
+        for (CooccurrenceModel model : List.of(built(10, 1, rows), added(10, 1, rows))) {
+            // Matrix: 3 entries; Heat: 2, next to it twice; Ran: 1, next to it once. The drama Matrix is another genre of the same title
+            assertThat(model.similar("matrix", 0, 10)).containsExactly(
+                    new Recommendation("Heat", List.of(), 0.816),
+                    new Recommendation("Ran", List.of(), 0.577));
+            assertThat(model.similar("Matrix", 0, 1)).extracting(Recommendation::getTitle).containsExactly("Heat");
+            assertThat(model.similar("Gattaca", 0, 10)).isEmpty();
+        }
+    }
+
+    @Test
+    void recommendationsSumTheSimilarityToEverySeedAndSkipOwnTitles() {
+        List<Row> rows = List.of(
+                row(1, 1, "Alien"), row(2, 1, "Ran"),
+                row(3, 2, "Heat"), row(4, 2, "Ran"),
+                row(5, 3, "Alien"), row(6, 3, "Gattaca"),
+                row(7, 10, "Alien"), row(8, 10, "Heat"));
+
+        for (CooccurrenceModel model : List.of(built(10, 1, rows), added(10, 1, rows))) {
+            // Ran: 1/sqrt(3*2) from Alien + 1/sqrt(2*2) from Heat; Gattaca: 1/sqrt(3*1) from Alien only
+            assertThat(model.recommend(10, 10, 50)).containsExactly(
+                    new Recommendation("Ran", List.of(), 0.908),
+                    new Recommendation("Gattaca", List.of(), 0.577));
+            assertThat(model.recommend(10, 1, 50)).extracting(Recommendation::getTitle).containsExactly("Ran");
+            assertThat(model.recommend(99, 10, 50)).isEmpty();
+        }
+    }
+
+    @Test
+    void applyingAnEntryTwiceChangesNothing() {
+        List<Row> rows = List.of(row(1, 1, "Alien"), row(2, 1, "Heat"), row(3, 2, "Alien"), row(4, 2, "Heat"), row(5, 2, "Ran"));
+        CooccurrenceModel model = added(10, 1, rows);
+        rows.forEach(row -> model.add(row.movieId(), row.userId(), row.name(), row.genreMask()));
+        model.remove(5, 2);
+        model.remove(5, 2);
+        model.remove(42, 7);
+
+        CooccurrenceModel expected = built(10, 1, rows.subList(0, 4));
+        assertThat(model.similar("Alien", 0, 10)).isEqualTo(expected.similar("Alien", 0, 10)).hasSize(1);
+        assertThat(model.similar("Ran", 0, 10)).isEmpty();
+
+        // An update moves the entry to its new title
+        model.add(4, 2, "Ran", 0);
+        assertThat(titles(model.similar("Alien", 0, 10))).containsExactlyInAnyOrder("Heat", "Ran");
+    }
+
+    @Test
+    void incrementalChangesMatchARebuildThroughGrowthAndRemoval() {
+        // Each title ends up next to most others, so its counts grow through several rehashes,
+        // and users and titles outgrow the model's initial arrays
+        Random random = new Random(42);
+        List<Row> rows = new ArrayList<>();
+        for (long id = 1; id <= 1_500; id++) {
+            rows.add(row(id, 1 + random.nextInt(50), "Title " + random.nextInt(60)));
+        }
+        CooccurrenceModel model = added(5, 2, rows);
+        List<Row> kept = new ArrayList<>();
+        for (Row row : rows) {
+            if (random.nextInt(3) == 0) {
+                model.remove(row.movieId(), row.userId());
+            } else {
+                kept.add(row);
+            }
+        }
+
+        CooccurrenceModel expected = built(5, 2, kept);
+        for (int title = 0; title < 60; title++) {
+            assertThat(model.similar("Title " + title, 0, 100))
+                    .containsExactlyInAnyOrderElementsOf(expected.similar("Title " + title, 0, 100));
+        }
+        for (long user = 1; user <= 50; user++) {
+            assertThat(model.recommend(user, 100, 50))
+                    .containsExactlyInAnyOrderElementsOf(expected.recommend(user, 100, 50));
+        }
+    }
+
+    private static CooccurrenceModel built(int window, int minOwners, List<Row> rows) {
+        CooccurrenceModel.Builder builder = CooccurrenceModel.builder(window, minOwners);
+        rows.forEach(row -> builder.add(row.movieId(), row.userId(), row.name(), row.genreMask()));
+        return builder.build();
+    }
+
+    private static CooccurrenceModel added(int window, int minOwners, List<Row> rows) {
+        CooccurrenceModel model = CooccurrenceModel.builder(window, minOwners).build();
+        rows.forEach(row -> model.add(row.movieId(), row.userId(), row.name(), row.genreMask()));
+        return model;
+    }
+
+    private static List<String> titles(List<Recommendation> recommendations) {
+        return recommendations.stream().map(Recommendation::getTitle).toList();
+    }
+
+    private static Row row(long movieId, long userId, String name) {
+        return row(movieId, userId, name, 0L);
+    }
+
+    private static Row row(long movieId, long userId, String name, long genreMask) {
+        return new Row(movieId, userId, name, genreMask);
+    }
+}
@@ -0,0 +1,109 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.dto.GenreFacet;
+import com.sb.main.server.entity.Genre;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The per-user genre counts as movies are added, retagged and deleted.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class GenreFacetServiceTest {
+
+    private static final String EMAIL = "facets@x.io";
+    private static final long USER_ID = 7201;
+
+    @Autowired
+    private MovieService movieService;
+
+    @Autowired
+    private GenreFacetService genreFacetService;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void insertUser() {
+        jdbcTemplate.update("insert into users (id, email, password, username) values (?, ?, 'unused', 'facets')", USER_ID, EMAIL);
+    }
+
+    // Contexts started later share the database, and rebuild the search index from it
+    @AfterEach
+    void deleteMovies() {
+        leaderboardService.flush();
+        jdbcTemplate.update("delete from title_counts");
+        jdbcTemplate.update("delete from genre_counts where user_id = ?", USER_ID);
+        jdbcTemplate.update("delete from movies where user_id = ?", USER_ID);
+        jdbcTemplate.update("delete from users where id = ?", USER_ID);
+    }
+
+    @Test
+    void countsFollowEveryWriteToTheWatchlist() throws Exception {
+        Long arrival = movieService.addMovie(EMAIL, "Arrival", "", null, "Sci-Fi, Drama", null).getId();
+        Long heat = movieService.addMovie(EMAIL, "Heat", "", null, "Drama", null).getId();
+        Long spinalTap = movieService.addMovie(EMAIL, "Spinal Tap", "", null, "Mockumentary", null).getId();
+
+        assertThat(facets()).containsExactly(
+                new GenreFacet(Genre.DRAMA, "Drama", 2),
+                new GenreFacet(Genre.SCIENCE_FICTION, "Science Fiction", 1));
+
+        // Drama is kept, so only the other genre moves
+        movieService.updateMovie(arrival, EMAIL, "Arrival", "", null, "Comedy / Drama", null);
+        movieService.updateMovie(spinalTap, EMAIL, "Spinal Tap", "", null, "Music Comedy", null);
+
+        assertThat(facets()).containsExactly(
+                new GenreFacet(Genre.COMEDY, "Comedy", 2),
+                new GenreFacet(Genre.DRAMA, "Drama", 2),
+                new GenreFacet(Genre.MUSIC, "Music", 1));
+
+        movieService.deleteMovie(heat, EMAIL);
+        movieService.deleteMovie(spinalTap, EMAIL);
+
+        assertThat(facets()).containsExactly(
+                new GenreFacet(Genre.COMEDY, "Comedy", 1),
+                new GenreFacet(Genre.DRAMA, "Drama", 1));
+        assertThat(jdbcTemplate.queryForObject("select min(movie_count) from genre_counts where user_id = ?", Integer.class, USER_ID))
+                .isZero();
+    }
+
+    @Test
+    void batchesAddEachGenreOnce() {
+        transactionTemplate.executeWithoutResult(status -> genreFacetService.moviesAdded(USER_ID, List.of(
+                Genre.HORROR.mask(), Genre.HORROR.mask() | Genre.THRILLER.mask(), 0L)));
+
+        assertThat(facets()).containsExactly(
+                new GenreFacet(Genre.HORROR, "Horror", 2),
+                new GenreFacet(Genre.THRILLER, "Thriller", 1));
+    }
+
+    @Test
+    void countsAreOnlyChangedWithTheMoviesInOneTransaction() {
+        assertThatThrownBy(() -> genreFacetService.movieChanged(USER_ID, 0L, Genre.WAR.mask()))
+                .isInstanceOf(IllegalTransactionStateException.class);
+        assertThat(facets()).isEmpty();
+    }
+
+    private List<GenreFacet> facets() {
+        return movieService.getGenreFacets(EMAIL);
+    }
+}
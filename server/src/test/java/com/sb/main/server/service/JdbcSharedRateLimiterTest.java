@@ -0,0 +1,113 @@
+package com.sb.main.server.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The shared limit against the schema Flyway builds, on a clock stepped by hand.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class JdbcSharedRateLimiterTest {
+
+    // One token a second, three at once
+    private static final RateLimiter.Limit LIMIT = new RateLimiter.Limit(60, 3);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JdbcSharedRateLimiter limiter;
+    private long now = 1_000_000;
+
+    @BeforeEach
+    void configure() {
+        limiter = start(jdbcTemplate);
+    }
+
+    @AfterEach
+    void deleteBuckets() {
+        jdbcTemplate.update("delete from rate_limit_buckets");
+    }
+
+    @Test
+    void aBurstIsGrantedAtOnceAndThenOneTokenPerInterval() {
+        // The first request creates the bucket, the next two take from it
+        assertThat(acquire("a", 3)).containsOnly(0L);
+        assertThat(limiter.tryAcquire("a", LIMIT)).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+        assertThat(fullAt("a")).isEqualTo(now + 3_000);
+
+        now += 1_000;
+        assertThat(limiter.tryAcquire("a", LIMIT)).isZero();
+        assertThat(limiter.tryAcquire("a", LIMIT)).isPositive();
+
+        now += 60_000;
+        assertThat(acquire("a", 3)).containsOnly(0L);
+        assertThat(limiter.tryAcquire("a", LIMIT)).isPositive();
+        assertThat(limiter.tryAcquire("b", LIMIT)).isZero();
+    }
+
+    @Test
+    void onlyFullBucketsAreSwept() {
+        acquire("full", 1);
+        acquire("draining", 3);
+
+        now += 1_500;
+        limiter.evictIdle();
+
+        assertThat(jdbcTemplate.queryForList("select bucket_key from rate_limit_buckets", String.class))
+                .containsExactly("draining");
+    }
+
+    @Test
+    void requestsAreGrantedWhileTheDatabaseIsDown() {
+        JdbcTemplate failing = mock(JdbcTemplate.class);
+        when(failing.update(anyString(), any(Object[].class))).thenThrow(new DataAccessResourceFailureException("Connection refused"));
+        JdbcSharedRateLimiter unavailable = start(failing);
+
+        assertThat(acquire(unavailable, "a", 5)).containsOnly(0L);
+        unavailable.evictIdle();
+
+        assertThat(meterRegistry.get("ratelimit.shared.errors").counter().count()).isEqualTo(6);
+    }
+
+    private JdbcSharedRateLimiter start(JdbcTemplate template) {
+        JdbcSharedRateLimiter started = new JdbcSharedRateLimiter(template, meterRegistry);
+        ReflectionTestUtils.setField(started, "currentTimeMillis", (LongSupplier) () -> now);
+        started.registerMetrics();
+        return started;
+    }
+
+    private long fullAt(String key) {
+        return jdbcTemplate.queryForObject("select full_at from rate_limit_buckets where bucket_key = ?", Long.class, key);
+    }
+
+    private long[] acquire(String key, int times) {
+        return acquire(limiter, key, times);
+    }
+
+    private static long[] acquire(JdbcSharedRateLimiter limiter, String key, int times) {
+        long[] waits = new long[times];
+        for (int i = 0; i < times; i++) {
+            waits[i] = limiter.tryAcquire(key, LIMIT);
+        }
+        return waits;
+    }
+}
@@ -0,0 +1,45 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.dto.LeaderboardEntry;
+import com.sb.main.server.entity.Genre;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "leaderboard.min-count=3")
+@ActiveProfiles("test")
+class LeaderboardServiceTest {
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void deleteCounts() {
+        jdbcTemplate.update("delete from title_counts");
+    }
+
+    @Test
+    void listsTheNormalizedTitleOfTitlesWithEnoughEntries() {
+        for (String name : List.of("The Matrix (1999)", "matrix", "MATRIX ", "Gattaca", "Gattaca", "my cat's name")) {
+            leaderboardService.movieAdded(name, Genre.ACTION.mask());
+        }
+        leaderboardService.flush();
+
+        assertThat(leaderboardService.top(LeaderboardService.Window.ALL, null, 10))
+                .containsExactly(new LeaderboardEntry("matrix", 3));
+        assertThat(leaderboardService.top(LeaderboardService.Window.DAY, Genre.ACTION, 10))
+                .containsExactly(new LeaderboardEntry("matrix", 3));
+        assertThat(jdbcTemplate.queryForList("select distinct title from title_counts", String.class))
+                .containsExactlyInAnyOrder("matrix", "gattaca", "my cat s name");
+    }
+}
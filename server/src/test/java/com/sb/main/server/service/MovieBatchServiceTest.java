@@ -0,0 +1,157 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.dto.BatchImportResult;
+import com.sb.main.server.dto.GenreFacet;
+import com.sb.main.server.entity.Genre;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.util.AopTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Imports in chunks of two, so a handful of rows crosses chunk boundaries.
+ */
+@SpringBootTest(properties = "movies.batch.chunk-size=2")
+@ActiveProfiles("test")
+class MovieBatchServiceTest {
+
+    private static final String EMAIL = "batch@x.io";
+    private static final long USER_ID = 7301;
+
+    @Autowired
+    private MovieBatchService movieBatchService;
+
+    @Autowired
+    private MovieService movieService;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Counts the chunks, and lets the database reject chosen rows
+    @MockitoSpyBean
+    private GenreFacetService genreFacetService;
+
+    @BeforeEach
+    void insertUser() {
+        jdbcTemplate.update("insert into users (id, email, password, username) values (?, ?, 'unused', 'batch')", USER_ID, EMAIL);
+    }
+
+    // Contexts started later share the database, and rebuild the search index from it
+    @AfterEach
+    void deleteMovies() {
+        leaderboardService.flush();
+        jdbcTemplate.update("delete from title_counts");
+        jdbcTemplate.update("delete from genre_counts where user_id = ?", USER_ID);
+        jdbcTemplate.update("delete from movies where user_id = ?", USER_ID);
+        jdbcTemplate.update("delete from users where id = ?", USER_ID);
+    }
+
+    @Test
+    void rowsAreInsertedInChunksInTheirOrder() throws IOException {
+        BatchImportResult result = importMovies(MediaType.APPLICATION_JSON, """
+                [{"name": "Alien", "genre": "Horror"},
+                 {"name": "Heat", "genre": "Crime"},
+                 {"name": "Ran", "genre": "War, Drama"},
+                 {"name": "Rush", "genre": "Sport"},
+                 {"name": "Arrival", "genre": "Sci-Fi"}]
+                """);
+
+        assertThat(result.getImported()).isEqualTo(5);
+        assertThat(result.getFailed()).isZero();
+        assertThat(result.getErrors()).isEmpty();
+        assertThat(jdbcTemplate.queryForList("select name from movies where user_id = ? order by id", String.class, USER_ID))
+                .containsExactly("Alien", "Heat", "Ran", "Rush", "Arrival");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> chunks = ArgumentCaptor.forClass(Collection.class);
+        verify(spy(), times(3)).moviesAdded(eq(USER_ID), chunks.capture());
+        assertThat(chunks.getAllValues()).extracting(Collection::size).containsExactly(2, 2, 1);
+    }
+
+    @Test
+    void rowsTheDatabaseRejectsAreReportedByPosition() throws IOException {
+        // Stands in for a constraint violation on any war movie
+        doAnswer(invocation -> {
+            Collection<Long> masks = invocation.getArgument(1);
+            if (masks.contains(Genre.WAR.mask())) {
+                throw new DataIntegrityViolationException("Rejected");
+            }
+            return invocation.callRealMethod();
+        }).when(spy()).moviesAdded(eq(USER_ID), anyCollection());
+
+        BatchImportResult result = importMovies(MovieRowReader.TEXT_CSV, """
+                name,genre
+                Alien,Horror
+                Patton,War
+                ,Drama
+                "Heat, the movie","Crime, Drama"
+                Das Boot,War
+                Ran,Drama
+                """);
+
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getFailed()).isEqualTo(3);
+        assertThat(result.getErrors()).containsExactly(
+                new BatchImportResult.ItemError(1, "Could not be saved"),
+                new BatchImportResult.ItemError(2, "name is required"),
+                new BatchImportResult.ItemError(4, "Could not be saved"));
+        assertThat(jdbcTemplate.queryForList("select name from movies where user_id = ? order by id", String.class, USER_ID))
+                .containsExactly("Alien", "Heat, the movie", "Ran");
+        // The rejected chunks were rolled back whole before their rows were retried
+        assertThat(movieService.getGenreFacets(EMAIL)).containsExactly(
+                new GenreFacet(Genre.DRAMA, "Drama", 2),
+                new GenreFacet(Genre.CRIME, "Crime", 1),
+                new GenreFacet(Genre.HORROR, "Horror", 1));
+    }
+
+    @Test
+    void rowsThatCannotBeReadOrFailValidationAreSkipped() throws IOException {
+        BatchImportResult result = importMovies(MediaType.APPLICATION_NDJSON, """
+                {"name": "Alien"}
+                {"name": "Heat"
+                {"name": "%s"}
+
+                {"name": "  "}
+                {"name": "Ran"}
+                """.formatted("x".repeat(256)));
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getErrors()).containsExactly(
+                new BatchImportResult.ItemError(1, "Invalid JSON line"),
+                new BatchImportResult.ItemError(2, "Fields are limited to 255 characters"),
+                new BatchImportResult.ItemError(3, "name is required"));
+    }
+
+    // The field holds the transactional proxy around the spy, which would demand a transaction while stubbing
+    private GenreFacetService spy() {
+        return AopTestUtils.getUltimateTargetObject(genreFacetService);
+    }
+
+    private BatchImportResult importMovies(MediaType contentType, String body) throws IOException {
+        return movieBatchService.importMovies(EMAIL, contentType, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+}
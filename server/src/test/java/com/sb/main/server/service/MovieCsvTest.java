@@ -0,0 +1,97 @@
+package com.sb.main.server.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sb.main.server.dto.MovieDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class MovieCsvTest {
+
+    @Test
+    void quotedFieldsHoldCommasQuotesAndNewlines() throws IOException {
+        assertThat(records("plain,\"a, b\",\"say \"\"hi\"\"\",\"two\nlines\"\r\nnext,row"))
+                .containsExactly(
+                        List.of("plain", "a, b", "say \"hi\"", "two\nlines"),
+                        List.of("next", "row"));
+    }
+
+    @Test
+    void emptyFieldsAndLineEndingsAreKept() throws IOException {
+        assertThat(records(",,\r\n\"\",x\n\nlast")).containsExactly(
+                List.of("", "", ""),
+                List.of("", "x"),
+                List.of(""),
+                List.of("last"));
+        // A final line break does not start another record
+        assertThat(records("a,b\r\n")).containsExactly(List.of("a", "b"));
+        assertThat(records("")).isEmpty();
+    }
+
+    @Test
+    void anUnterminatedQuoteRunsToTheEndOfInput() throws IOException {
+        assertThat(records("\"open,\nstill open\nok,row")).containsExactly(List.of("open,\nstill open\nok,row"));
+    }
+
+    @Test
+    void writtenRecordsReadBackUnchanged() throws IOException {
+        StringWriter out = new StringWriter();
+        MovieCsv.writeRecord(out, "Heat, the movie", "say \"hi\"", "two\r\nlines", null, "plain");
+
+        assertThat(out.toString()).isEqualTo("\"Heat, the movie\",\"say \"\"hi\"\"\",\"two\r\nlines\",,plain\r\n");
+        assertThat(records(out.toString())).containsExactly(List.of("Heat, the movie", "say \"hi\"", "two\r\nlines", "", "plain"));
+    }
+
+    @Test
+    void rowsAreReadByTheColumnsTheHeaderNames() throws IOException {
+        List<MovieDTO> movies = movies("genre, name ,unknown\r\n"
+                + "\"Crime, Drama\",Heat,ignored\r\n"
+                + "\r\n"
+                + "Horror\r\n"
+                + ",Alien,\r\n");
+
+        assertThat(movies).extracting(MovieDTO::getName, MovieDTO::getGenre, MovieDTO::getDescription).containsExactly(
+                tuple("Heat", "Crime, Drama", null),
+                // A short row leaves its missing columns empty, validation rejects it later
+                tuple(null, "Horror", null),
+                tuple("Alien", null, null));
+    }
+
+    @Test
+    void aHeaderWithoutANameColumnIsRejected() {
+        assertThatThrownBy(() -> movies("title,genre\nHeat,Crime\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("CSV header must contain a name column");
+    }
+
+    private static List<List<String>> records(String csv) throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader(csv));
+        List<List<String>> records = new ArrayList<>();
+        for (List<String> record = MovieCsv.readRecord(reader); record != null; record = MovieCsv.readRecord(reader)) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static List<MovieDTO> movies(String csv) throws IOException {
+        List<MovieDTO> movies = new ArrayList<>();
+        try (MovieRowReader reader = MovieRowReader.open(MovieRowReader.TEXT_CSV,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), new ObjectMapper())) {
+            for (MovieRowReader.Row row = reader.next(); row != null; row = reader.next()) {
+                movies.add(row.movie());
+            }
+        }
+        return movies;
+    }
+}
@@ -0,0 +1,87 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.repository.MovieRepository;
+import org.apache.lucene.index.IndexWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Start-up checks of a persisted index: only one committed after its last change is trusted.
+ */
+class MovieSearchServiceTest {
+
+    @TempDir
+    Path indexPath;
+
+    private final MovieRepository movieRepository = mock(MovieRepository.class);
+
+    @Test
+    void cleanlyClosedIndexIsInSync() throws IOException {
+        MovieSearchService first = rebuilt();
+        first.index(1L, 1L, "Heat", "", "Crime");
+        first.close();
+
+        assertThat(open().isInSync()).isTrue();
+    }
+
+    @Test
+    void indexChangedSinceItsLastCommitIsRebuilt() throws IOException {
+        MovieSearchService first = rebuilt();
+        first.index(1L, 1L, "Heat", "", "Crime");
+        crash(first);
+
+        assertThat(open().isInSync()).isFalse();
+    }
+
+    @Test
+    void scheduledCommitKeepsAChangeAcrossACrash() throws IOException {
+        MovieSearchService first = rebuilt();
+        first.index(1L, 1L, "Heat", "", "Crime");
+        first.maintain();
+        crash(first);
+
+        assertThat(open().isInSync()).isTrue();
+    }
+
+    @Test
+    void staleIndexIsRebuiltOnSchedule() throws IOException {
+        MovieSearchService service = rebuilt();
+        ReflectionTestUtils.invokeMethod(service, "markStale", new IOException("disk full"));
+        assertThat(service.isReady()).isFalse();
+
+        service.maintain();
+
+        assertThat(service.isReady()).isTrue();
+        service.close();
+    }
+
+    private MovieSearchService rebuilt() throws IOException {
+        MovieSearchService service = open();
+        service.rebuild();
+        return service;
+    }
+
+    private MovieSearchService open() throws IOException {
+        when(movieRepository.count()).thenReturn(1L);
+        when(movieRepository.streamSearchRows()).thenAnswer(invocation -> Stream.empty());
+        MovieSearchService service = new MovieSearchService(movieRepository, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "indexPath", indexPath.toString());
+        service.open();
+        return service;
+    }
+
+    // Drops what was not committed and releases the index, as a killed process would
+    private static void crash(MovieSearchService service) throws IOException {
+        ((IndexWriter) ReflectionTestUtils.getField(service, "writer")).rollback();
+    }
+}
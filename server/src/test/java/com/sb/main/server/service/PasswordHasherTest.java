@@ -0,0 +1,82 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHasherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        hasher.shutdown();
+    }
+
+    @Test
+    void hashingBeyondThePoolAndItsQueueIsTurnedAway() throws Exception {
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.encode(anyString())).thenAnswer(invocation -> {
+            release.await();
+            return "hash:" + invocation.getArgument(0);
+        });
+        hasher = start(encoder, 1, 1);
+        BlockingQueue<String> encoded = new LinkedBlockingQueue<>();
+
+        // The first task goes straight to the only thread and blocks it, the second fills the queue
+        hasher.encodeLater("first", encoded::add);
+        hasher.encodeLater("second", encoded::add);
+
+        assertThatThrownBy(() -> hasher.encode("third"))
+                .isInstanceOfSatisfying(ServiceOverloadedException.class, e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(3));
+        hasher.encodeLater("fourth", encoded::add);
+        assertThat(meterRegistry.get("auth.hashing.rejected").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("auth.hashing.queue").gauge().value()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(encoded.poll(5, TimeUnit.SECONDS)).isEqualTo("hash:first");
+        assertThat(encoded.poll(5, TimeUnit.SECONDS)).isEqualTo("hash:second");
+        assertThat(hasher.encode("fifth")).isEqualTo("hash:fifth");
+        // One thread runs tasks in order: had the fourth been kept, it would be done by now
+        assertThat(encoded).isEmpty();
+    }
+
+    @Test
+    void hashesMadeWithALowerCostNeedARehash() {
+        hasher = start(new BCryptPasswordEncoder(5), 1, 4);
+
+        String current = hasher.encode("secret");
+
+        assertThat(hasher.matches("secret", current)).isTrue();
+        assertThat(hasher.matches("guess", current)).isFalse();
+        assertThat(hasher.needsRehash(current)).isFalse();
+        assertThat(hasher.needsRehash(new BCryptPasswordEncoder(4).encode("secret"))).isTrue();
+    }
+
+    private PasswordHasher start(PasswordEncoder encoder, int threads, int queueCapacity) {
+        PasswordHasher started = new PasswordHasher(encoder, meterRegistry);
+        ReflectionTestUtils.setField(started, "threads", threads);
+        ReflectionTestUtils.setField(started, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(started, "retryAfterSeconds", 3L);
+        started.init();
+        return started;
+    }
+}
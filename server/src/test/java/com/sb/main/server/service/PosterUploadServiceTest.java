@@ -0,0 +1,195 @@
+package com.sb.main.server.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Background poster uploads against a stub ImgBB server that answers with a scripted
+ * sequence of status codes and records when each upload arrived.
+ */
+@SpringBootTest(properties = {
+        "poster.storage=imgbb",
+        "upload.max-attempts=3",
+        "upload.backoff-ms=200"
+})
+@ActiveProfiles("test")
+class PosterUploadServiceTest {
+
+    private static final long BACKOFF_MS = 200;
+    private static final String EMAIL = "poster@x.io";
+
+    private static final Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+    private static final List<Long> uploadedAt = new CopyOnWriteArrayList<>();
+    private static final List<String> queries = new CopyOnWriteArrayList<>();
+    private static final HttpServer imgbb = startImgbb();
+
+    @Autowired
+    private PosterUploadService posterUploadService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void imgbbUrl(DynamicPropertyRegistry registry) {
+        registry.add("imgbb.api.url", () -> "http://localhost:" + imgbb.getAddress().getPort() + "/1/upload");
+    }
+
+    @AfterAll
+    static void stopImgbb() {
+        imgbb.stop(0);
+    }
+
+    @BeforeEach
+    void insertMovie() {
+        statuses.clear();
+        uploadedAt.clear();
+        queries.clear();
+        jdbcTemplate.update("insert into users (id, email, password, username) values (5001, ?, 'unused', 'poster')", EMAIL);
+        jdbcTemplate.update("insert into movies (id, user_id, name, genre, poster_status, poster_pending_since) values (6001, 5001, 'Heat', 'Crime', 'PENDING', ?)",
+                System.currentTimeMillis());
+    }
+
+    // Contexts started later share the database, and rebuild the search index from it
+    @AfterEach
+    void deleteMovie() {
+        jdbcTemplate.update("delete from movies where user_id = 5001");
+        jdbcTemplate.update("delete from users where id = 5001");
+    }
+
+    @Test
+    void uploadedPosterIsStoredWithItsVariants() throws Exception {
+        Path file = poster();
+
+        posterUploadService.submit(6001L, EMAIL, file);
+
+        Map<String, Object> movie = awaitPosterStatus("READY");
+        assertThat(movie).containsEntry("poster_url", "https://i.ibb.co/heat.png")
+                .containsEntry("poster_thumb_url", "https://i.ibb.co/thumb/heat.png")
+                .containsEntry("poster_medium_url", "https://i.ibb.co/medium/heat.png");
+        assertThat(uploadedAt).hasSize(1);
+        assertThat(queries).containsExactly("key=unused");
+        awaitDeleted(file);
+    }
+
+    @Test
+    void failedUploadsAreRetriedWithGrowingBackoff() throws Exception {
+        statuses.addAll(List.of(500, 503));
+
+        posterUploadService.submit(6001L, EMAIL, poster());
+
+        assertThat(awaitPosterStatus("READY")).containsEntry("poster_url", "https://i.ibb.co/heat.png");
+        assertThat(uploadedAt).hasSize(3);
+        assertThat(uploadedAt.get(1) - uploadedAt.get(0)).isGreaterThanOrEqualTo(BACKOFF_MS);
+        assertThat(uploadedAt.get(2) - uploadedAt.get(1)).isGreaterThanOrEqualTo(2 * BACKOFF_MS);
+    }
+
+    @Test
+    void posterIsFailedAfterTheLastAttempt() throws Exception {
+        statuses.addAll(List.of(500, 500, 500, 500));
+        Path file = poster();
+
+        posterUploadService.submit(6001L, EMAIL, file);
+
+        assertThat(awaitPosterStatus("FAILED")).containsEntry("poster_url", null);
+        assertThat(uploadedAt).hasSize(3);
+        awaitDeleted(file);
+    }
+
+    @Test
+    void uploadsLostWithARestartAreFailed() {
+        long watchlistVersion = watchlistVersion();
+        // Queued an hour ago on a node that has since stopped, and before the time was recorded
+        jdbcTemplate.update("update movies set poster_pending_since = ? where id = 6001", System.currentTimeMillis() - 3_600_000);
+        jdbcTemplate.update("insert into movies (id, user_id, name, genre, poster_status) values (6002, 5001, 'Ran', 'Drama', 'PENDING')");
+        // Still being uploaded
+        jdbcTemplate.update("insert into movies (id, user_id, name, genre, poster_status, poster_pending_since) values (6003, 5001, 'Alien', 'Horror', 'PENDING', ?)",
+                System.currentTimeMillis());
+
+        posterUploadService.failStaleUploads();
+
+        assertThat(jdbcTemplate.queryForList("select id, poster_status from movies where user_id = 5001 order by id"))
+                .extracting(row -> row.get("poster_status"))
+                .containsExactly("FAILED", "FAILED", "PENDING");
+        assertThat(watchlistVersion()).isEqualTo(watchlistVersion + 2);
+    }
+
+    private long watchlistVersion() {
+        return jdbcTemplate.queryForObject("select watchlist_version from users where id = 5001", Long.class);
+    }
+
+    private Map<String, Object> awaitPosterStatus(String status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            Map<String, Object> movie = jdbcTemplate.queryForMap("select * from movies where id = 6001");
+            if (status.equals(movie.get("poster_status")) || System.currentTimeMillis() > deadline) {
+                assertThat(movie).containsEntry("poster_status", status);
+                return movie;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    // The spooled file is deleted right after the status is written
+    private static void awaitDeleted(Path file) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (Files.exists(file) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(file).doesNotExist();
+    }
+
+    private static Path poster() throws IOException {
+        Path file = Files.createTempFile("poster-", ".upload");
+        Files.write(file, new byte[]{(byte) 0x89, 'P', 'N', 'G'});
+        return file;
+    }
+
+    private static HttpServer startImgbb() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/1/upload", PosterUploadServiceTest::upload);
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void upload(HttpExchange exchange) throws IOException {
+        uploadedAt.add(System.currentTimeMillis());
+        queries.add(exchange.getRequestURI().getQuery());
+        exchange.getRequestBody().readAllBytes();
+        Integer status = statuses.poll();
+        byte[] body = (status == null
+                ? "{\"data\":{\"url\":\"https://i.ibb.co/heat.png\",\"thumb\":{\"url\":\"https://i.ibb.co/thumb/heat.png\"},"
+                + "\"medium\":{\"url\":\"https://i.ibb.co/medium/heat.png\"}},\"success\":true}"
+                : "{\"error\":{\"message\":\"Upstream down\"},\"success\":false}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status == null ? 200 : status, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+}
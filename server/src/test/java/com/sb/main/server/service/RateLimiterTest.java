@@ -0,0 +1,109 @@
+package com.sb.main.server.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RateLimiterTest {
+
+    // One token a second, three at once
+    private static final RateLimiter.Limit LIMIT = new RateLimiter.Limit(60, 3);
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SharedRateLimiter shared = mock(SharedRateLimiter.class);
+    private final RateLimiter limiter = new RateLimiter(Optional.of(shared), meterRegistry);
+    // nanoTime may be negative, and only differences count
+    private long now = -5 * SECOND;
+
+    @BeforeEach
+    void configure() {
+        ReflectionTestUtils.setField(limiter, "maxKeys", 10);
+        ReflectionTestUtils.setField(limiter, "nanoTime", (LongSupplier) () -> now);
+        limiter.registerMetrics();
+    }
+
+    @Test
+    void aBurstIsGrantedAtOnceAndThenOneTokenPerInterval() {
+        assertThat(acquire("a", 3)).containsOnly(0L);
+        assertThat(limiter.tryAcquire("a", LIMIT)).isEqualTo(SECOND);
+
+        now += SECOND / 2;
+        assertThat(limiter.tryAcquire("a", LIMIT)).isEqualTo(SECOND / 2);
+        now += SECOND / 2;
+        assertThat(limiter.tryAcquire("a", LIMIT)).isZero();
+        assertThat(limiter.tryAcquire("a", LIMIT)).isEqualTo(SECOND);
+
+        // A long pause refills the bucket up to the burst, no further
+        now += 60 * SECOND;
+        assertThat(acquire("a", 3)).containsOnly(0L);
+        assertThat(limiter.tryAcquire("a", LIMIT)).isEqualTo(SECOND);
+        assertThat(limiter.tryAcquire("b", LIMIT)).isZero();
+    }
+
+    @Test
+    void onlyTokensGrantedHereAreTakenFromTheSharedLimit() {
+        when(shared.tryAcquire(anyString(), any())).thenReturn(0L, 7L);
+
+        assertThat(limiter.tryAcquire("a", LIMIT)).isZero();
+        assertThat(limiter.tryAcquire("a", LIMIT)).isEqualTo(7L);
+
+        RateLimiter.Limit single = new RateLimiter.Limit(60, 1);
+        limiter.tryAcquire("b", single);
+        limiter.tryAcquire("b", single);
+        verify(shared).tryAcquire("b", single);
+    }
+
+    @Test
+    void onlyFullBucketsAreSweptAndDroppingThemChangesNothing() {
+        acquire("full", 1);
+        acquire("draining", 3);
+
+        now += 3 * SECOND / 2;
+        limiter.evictIdle();
+
+        assertThat(keys()).isEqualTo(1);
+        assertThat(acquire("full", 3)).containsOnly(0L);
+        assertThat(limiter.tryAcquire("full", LIMIT)).isEqualTo(SECOND);
+        assertThat(limiter.tryAcquire("draining", LIMIT)).isZero();
+        assertThat(limiter.tryAcquire("draining", LIMIT)).isEqualTo(SECOND / 2);
+    }
+
+    @Test
+    void keysBeyondTheCapEvictOthers() {
+        for (int i = 0; i < 10; i++) {
+            acquire("key" + i, 1);
+        }
+        assertThat(meterRegistry.get("ratelimit.evictions").functionCounter().count()).isZero();
+
+        // Nothing is idle, so a tenth of the cap goes whatever its state
+        acquire("one more", 1);
+
+        assertThat(keys()).isEqualTo(10);
+        assertThat(meterRegistry.get("ratelimit.evictions").functionCounter().count()).isEqualTo(1);
+    }
+
+    private long[] acquire(String key, int times) {
+        long[] waits = new long[times];
+        for (int i = 0; i < times; i++) {
+            waits[i] = limiter.tryAcquire(key, LIMIT);
+        }
+        return waits;
+    }
+
+    private double keys() {
+        return meterRegistry.get("ratelimit.keys").gauge().value();
+    }
+}
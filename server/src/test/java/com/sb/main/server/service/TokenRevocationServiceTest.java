@@ -0,0 +1,71 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.config.TokenRevocationHealthIndicator;
+import com.sb.main.server.entity.TokenRevocation;
+import com.sb.main.server.exception.ServiceOverloadedException;
+import com.sb.main.server.repository.TokenRevocationRepository;
+import com.sb.main.server.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationServiceTest {
+
+    private final TokenRevocationRepository revocationRepository = mock(TokenRevocationRepository.class);
+    private final TokenRevocationService revocations =
+            new TokenRevocationService(revocationRepository, mock(UserRepository.class), new SimpleMeterRegistry());
+    private final TokenRevocationHealthIndicator health = new TokenRevocationHealthIndicator(revocations);
+
+    @BeforeEach
+    void configure() {
+        ReflectionTestUtils.setField(revocations, "refreshTokenTtl", Duration.ofDays(30));
+        ReflectionTestUtils.setField(revocations, "pollOverlap", Duration.ofSeconds(30));
+    }
+
+    @Test
+    void tokensAreRefusedUntilTheFirstLoadSucceeds() {
+        when(revocationRepository.findByCreatedAtGreaterThanEqualAndExpiresAtGreaterThan(anyLong(), anyLong()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"))
+                .thenReturn(List.of());
+
+        revocations.init();
+
+        assertThat(revocations.isLoaded()).isFalse();
+        assertThat(health.health().getStatus()).isEqualTo(Status.DOWN);
+        assertThatThrownBy(() -> revocations.isRevoked(1L, 0L, "session"))
+                .isInstanceOf(ServiceOverloadedException.class);
+
+        revocations.poll();
+
+        assertThat(health.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(revocations.isRevoked(1L, 0L, "session")).isFalse();
+    }
+
+    @Test
+    void revocationsPolledFromOtherNodesApply() {
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        when(revocationRepository.findByCreatedAtGreaterThanEqualAndExpiresAtGreaterThan(anyLong(), anyLong()))
+                .thenReturn(List.of(
+                        new TokenRevocation(1L, 1L, "signed-out", null, 0L, expiresAt),
+                        new TokenRevocation(2L, 2L, null, 3L, 0L, expiresAt)));
+
+        revocations.init();
+
+        assertThat(revocations.isRevoked(1L, 0L, "signed-out")).isTrue();
+        assertThat(revocations.isRevoked(1L, 0L, "other")).isFalse();
+        assertThat(revocations.isRevoked(2L, 2L, "any")).isTrue();
+        assertThat(revocations.isRevoked(2L, 3L, "any")).isFalse();
+    }
+}
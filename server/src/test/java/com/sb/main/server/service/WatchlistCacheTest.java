@@ -0,0 +1,127 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.dto.MovieDTO;
+import com.sb.main.server.entity.PosterStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Writes that bypass the in-place patching, or are made on another node, seen through both
+ * cache tiers.
+ */
+@SpringBootTest(properties = "watchlist.cache.tier=memory")
+@ActiveProfiles("test")
+class WatchlistCacheTest {
+
+    private static final String EMAIL = "cache@x.io";
+
+    @Autowired
+    private MovieService movieService;
+
+    @Autowired
+    private MovieBatchService movieBatchService;
+
+    @Autowired
+    private PosterUploadService posterUploadService;
+
+    @Autowired
+    private WatchlistCache watchlistCache;
+
+    @Autowired
+    private WatchlistVersionService watchlistVersionService;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private PosterStorage posterStorage;
+
+    @BeforeEach
+    void insertMovie() {
+        jdbcTemplate.update("insert into users (id, email, password, username) values (7001, ?, 'unused', 'cache')", EMAIL);
+        jdbcTemplate.update("insert into movies (id, user_id, name, genre, poster_status, poster_pending_since) values (8001, 7001, 'Heat', 'Crime', 'PENDING', ?)",
+                System.currentTimeMillis());
+    }
+
+    // Contexts started later share the database, and rebuild the search index from it
+    @AfterEach
+    void deleteMovies() {
+        leaderboardService.flush();
+        jdbcTemplate.update("delete from title_counts");
+        jdbcTemplate.update("delete from genre_counts where user_id = 7001");
+        jdbcTemplate.update("delete from movies where user_id = 7001");
+        jdbcTemplate.update("delete from users where id = 7001");
+        // Deleted behind the cache's back
+        watchlistCache.invalidateUser(7001L);
+    }
+
+    @Test
+    void importedMoviesReplaceACachedWatchlist() throws Exception {
+        assertThat(names()).containsExactly("Heat");
+
+        byte[] body = "{\"name\":\"Alien\",\"genre\":\"Horror\"}\n".getBytes(StandardCharsets.UTF_8);
+        movieBatchService.importMovies(EMAIL, MediaType.APPLICATION_NDJSON, new ByteArrayInputStream(body));
+
+        assertThat(names()).containsExactlyInAnyOrder("Heat", "Alien");
+    }
+
+    @Test
+    void finishedPosterReplacesACachedWatchlist() throws Exception {
+        assertThat(movies()).singleElement().extracting(MovieDTO::getPosterStatus).isEqualTo(PosterStatus.PENDING);
+        when(posterStorage.store(any())).thenReturn(new PosterStorage.StoredPoster(
+                "https://i.ibb.co/heat.png", "https://i.ibb.co/thumb/heat.png", "https://i.ibb.co/medium/heat.png"));
+
+        Path file = Files.createTempFile("poster-", ".upload");
+        posterUploadService.submit(8001L, EMAIL, file);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        MovieDTO movie = movies().get(0);
+        while (movie.getPosterStatus() != PosterStatus.READY && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            movie = movies().get(0);
+        }
+        assertThat(movie.getPosterStatus()).isEqualTo(PosterStatus.READY);
+        assertThat(movie.getPosterUrl()).isEqualTo("https://i.ibb.co/heat.png");
+    }
+
+    @Test
+    void changeMadeOnAnotherNodeReplacesACachedWatchlist() {
+        assertThat(names()).containsExactly("Heat");
+        String etag = watchlistVersionService.watchlistEtag(EMAIL);
+
+        // As another node commits an added movie, nothing in this process hears of it
+        jdbcTemplate.update("insert into movies (id, user_id, name, genre) values (8002, 7001, 'Alien', 'Horror')");
+        jdbcTemplate.update("update users set watchlist_version = watchlist_version + 1 where id = 7001");
+
+        assertThat(watchlistVersionService.watchlistEtag(EMAIL)).isNotEqualTo(etag);
+        assertThat(names()).containsExactlyInAnyOrder("Heat", "Alien");
+    }
+
+    private List<MovieDTO> movies() {
+        return movieService.getUserMovies(EMAIL, null, null, null, false);
+    }
+
+    private List<String> names() {
+        return movies().stream().map(MovieDTO::getName).toList();
+    }
+}
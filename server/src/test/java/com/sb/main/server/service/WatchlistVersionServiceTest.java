@@ -0,0 +1,34 @@
+package com.sb.main.server.service;
+
+import com.sb.main.server.config.PrimaryStickiness;
+import com.sb.main.server.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class WatchlistVersionServiceTest {
+
+    private final WatchlistVersionService versions = new WatchlistVersionService(new PrimaryStickiness(), mock(UserRepository.class));
+
+    @Test
+    void viewsWithTheSameHashCodeGetDifferentEtags() {
+        assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+        assertThat(versions.watchlistEtag("a@x.io", "Aa", null, null, true))
+                .isNotEqualTo(versions.watchlistEtag("a@x.io", "BB", null, null, true));
+    }
+
+    @Test
+    void nullAndEmptyFiltersGetDifferentEtags() {
+        assertThat(versions.watchlistEtag("a@x.io", null, "", null, true))
+                .isNotEqualTo(versions.watchlistEtag("a@x.io", "", null, null, true))
+                .isNotEqualTo(versions.watchlistEtag("a@x.io", null, null, null, true));
+    }
+
+    @Test
+    void sameViewKeepsItsEtagUntilTheWatchlistChanges() {
+        String etag = versions.watchlistEtag("a@x.io", "matrix", "Sci-Fi", "ACTION,DRAMA", false);
+        assertThat(versions.watchlistEtag("a@x.io", "matrix", "Sci-Fi", "ACTION,DRAMA", false)).isEqualTo(etag);
+        assertThat(etag).matches("W/\"[A-Za-z0-9._~-]+\"");
+    }
+}
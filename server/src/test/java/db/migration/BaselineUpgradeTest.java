@@ -0,0 +1,78 @@
+package db.migration;
+
+import com.sb.main.server.ServerApplication;
+import com.sb.main.server.dto.MovieDTO;
+import com.sb.main.server.service.MovieSearchService;
+import com.sb.main.server.service.MovieService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Starts on a database as ddl-auto=update left it before Flyway: the V1 schema, no history table
+ * and movies with AUTO_INCREMENT ids. It is baselined at V1 and brought up to date by V2 and up.
+ */
+@SpringBootTest(classes = ServerApplication.class, properties = "spring.datasource.url=" + BaselineUpgradeTest.URL)
+@ActiveProfiles("test")
+class BaselineUpgradeTest {
+
+    static final String URL = "jdbc:h2:mem:upgrade;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final int EXISTING_MOVIES = 120;
+
+    private static final JdbcTemplate database = new JdbcTemplate(new DriverManagerDataSource(URL, "sa", ""));
+
+    static {
+        Flyway.configure().dataSource(URL, "sa", "").target("1").load().migrate();
+        database.execute("drop table flyway_schema_history");
+        database.update("insert into users (email, password, username) values ('old@x.io', 'unused', 'old')");
+        for (int i = 0; i < EXISTING_MOVIES; i++) {
+            database.update("insert into movies (name, genre, poster_url, user_id) values (?, 'Drama', ?, 1)",
+                    "Old " + i, i == 0 ? "https://i.ibb.co/old.png" : null);
+        }
+    }
+
+    // Rebuilding the index streams the movies with a MySQL-only fetch size, which H2 rejects
+    @MockitoBean
+    private MovieSearchService movieSearchService;
+
+    @Autowired
+    private MovieService movieService;
+
+    @Test
+    void newMoviesGetIdsPastTheExistingOnes() throws Exception {
+        Set<Long> ids = new HashSet<>();
+        // More than one block of the pooled generator
+        for (int i = 0; i < 60; i++) {
+            MovieDTO saved = movieService.addMovie("old@x.io", "New " + i, "", null, "Drama", null);
+            assertThat(saved.getId()).isGreaterThan(EXISTING_MOVIES);
+            ids.add(saved.getId());
+        }
+        assertThat(ids).hasSize(60);
+    }
+
+    @Test
+    void upgradedSchemaRejectsADuplicateEmail() {
+        assertThatThrownBy(() -> database.update("insert into users (email, password, username) values ('old@x.io', 'unused', 'again')"))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    void postersStoredBeforeTheUpgradeAreReady() {
+        assertThat(database.queryForList("select poster_status from movies where id <= ? group by poster_status order by poster_status",
+                String.class, EXISTING_MOVIES)).containsExactly("NONE", "READY");
+        assertThat(database.queryForObject("select poster_status from movies where poster_url is not null", String.class))
+                .isEqualTo("READY");
+    }
+}
@@ -0,0 +1,76 @@
+package db.migration;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Movies stored before V5 get their genre_mask and genre_counts from V6.
+ */
+class GenreBackfillTest {
+
+    private static final String URL = "jdbc:h2:mem:genre-backfill;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    // More than one page of the migration
+    private static final int DRAMAS = 1_500;
+
+    private static final JdbcTemplate database = new JdbcTemplate(new DriverManagerDataSource(URL, "sa", ""));
+
+    @BeforeAll
+    static void migrate() {
+        Flyway.configure().dataSource(URL, "sa", "").target("5").load().migrate();
+        database.update("insert into users (id, email, password, username) values (1, 'one@x.io', 'unused', 'one'), (2, 'two@x.io', 'unused', 'two')");
+        List<Object[]> dramas = new ArrayList<>();
+        for (int i = 0; i < DRAMAS; i++) {
+            dramas.add(new Object[]{"Drama " + i});
+        }
+        database.batchUpdate("insert into movies (name, genre, user_id) values (?, 'dramas', 1)", dramas);
+        database.update("insert into movies (name, genre, user_id) values "
+                + "('Arrival', 'Sci-Fi / Drama', 2), ('Akira', 'anime, Action', 2), ('Rush', 'Action Sport', 2), "
+                + "('Spinal Tap', 'Mockumentary', 2), ('Untagged', null, 2), ('Orphan', 'Horror', null)");
+
+        Flyway.configure().dataSource(URL, "sa", "").load().migrate();
+    }
+
+    @Test
+    void everyParsedGenreIsStoredOnTheMovie() {
+        assertThat(masks()).containsExactlyInAnyOrderEntriesOf(Map.of(
+                "Arrival", 1L << 14 | 1L << 6,
+                "Akira", 1L << 2 | 1L << 0,
+                "Rush", 1L << 0 | 1L << 21,
+                "Spinal Tap", 0L,
+                "Untagged", 0L,
+                "Orphan", 1L << 10));
+        assertThat(database.queryForObject("select count(*) from movies where user_id = 1 and genre_mask = ?", Integer.class, 1L << 6))
+                .isEqualTo(DRAMAS);
+    }
+
+    @Test
+    void countsCoverEveryOwnedMovie() {
+        assertThat(database.query("select user_id, genre, movie_count from genre_counts order by user_id, genre",
+                (rs, n) -> List.of(rs.getLong(1), rs.getInt(2), rs.getInt(3))))
+                .containsExactly(
+                        List.of(1L, 6, DRAMAS),
+                        List.of(2L, 0, 2),
+                        List.of(2L, 2, 1),
+                        List.of(2L, 6, 1),
+                        List.of(2L, 14, 1),
+                        List.of(2L, 21, 1));
+    }
+
+    private static Map<String, Long> masks() {
+        Map<String, Long> masks = new HashMap<>();
+        database.query("select name, genre_mask from movies where user_id = 2 or user_id is null",
+                (RowCallbackHandler) rs -> masks.put(rs.getString(1), rs.getLong(2)));
+        return masks;
+    }
+}